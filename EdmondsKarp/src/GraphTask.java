@@ -7,7 +7,10 @@ import java.util.*;
  * Application of Edmonds-Karp Algorithm to find max flow between any 2 nodes in a graph.
  * The graph is a custom abstract data structure created for this task.
  * Arcs(nodes) holds source and destination arcs, a pointer to next arc from same vertex, as well as unique ID. They are directional.
+ * Every arc knows its reverse arc in the residual graph, createArc adds a zero limit reverse arc when needed.
  * Vertices holds a pointer to another vertex in the graph and first arc from that vertex.
+ * For large graphs an immutable compressed sparse row copy (CsrGraph) keeps the same
+ * arcs in primitive arrays.
  */
 public class GraphTask {
 
@@ -20,12 +23,36 @@ public class GraphTask {
    /** Actual main method to run examples and everything. */
    public void run() {
       Graph g = new Graph ("G");
-      g.createTestGraph1();
-      g.createTestGraph2();
-      g.createTestGraph3();
-      g.createTestGraph4();
-      //g.createTestGraph5();
+      for (FlowAlgorithm strategy : FlowAlgorithm.values()) {
+         int f1 = g.createTestGraph1(strategy);
+         int f2 = g.createTestGraph2(strategy);
+         int f3 = g.createTestGraph3(strategy);
+         int f4 = g.createTestGraph4(strategy);
+         //g.createTestGraph5(strategy);
+         System.out.println(strategy + " max flows: " + f1 + " " + f2 + " " + f3 + " " + f4);
+      }
+
+   }
+
+   /** Algorithms for finding max flow, all of them give the same flow value. */
+   enum FlowAlgorithm {
+      /** shortest augmenting paths found by bfs, O(VE^2) */
+      EDMONDS_KARP,
+      /** blocking flows in level graphs with current-arc pointers, O(V^2 E) */
+      DINIC,
+      /** highest-label push-relabel with gap and global relabeling heuristics, O(V^2 sqrt(E)) */
+      PUSH_RELABEL
+   }
+
+   /** Callback for tracing max flow computations, maxFlow itself prints nothing. */
+   interface FlowListener {
 
+      /**
+       * Called after flow has been sent along an augmenting path.
+       * @param path arcs of the path from source to sink
+       * @param bottleneck amount of flow sent, the smallest capacity on the path
+       */
+      void onAugment(List<Arc> path, int bottleneck);
    }
 
    /** Finding max flow from source vertex to sink vertex on a directed graph
@@ -36,7 +63,7 @@ public class GraphTask {
       private String id;
       private Vertex next;
       private Arc first;
-      private Vertex leading;
+      private Arc leading;
       private int info = 0;
 
       private int lastVisit;
@@ -82,16 +109,20 @@ public class GraphTask {
 
 
    /** Arc represents one arrow in the graph. Two-directional edges are
-    * represented by two Arc objects (for both directions).
+    * represented by two Arc objects (for both directions), which are
+    * reverse arcs of each other.
     */
    class Arc {
 
       private String id;
       private Vertex target;
       private Arc next;
-      private final int limit;
+      private int limit;
       private int flow = 0;
       private int info = 0;
+      private Arc reverse;
+      /** true if created by createArc only as the reverse of another arc */
+      private boolean residual = false;
       // You can add more fields, if needed
 
       Arc (String s, Vertex v, Arc a, int limit) {
@@ -130,6 +161,7 @@ public class GraphTask {
       private int info = 0;
       // You can add more fields, if needed
       private int bfsIteration = 0;
+      private FlowListener listener = null;
 
       Graph (String s, Vertex v) {
          id = s;
@@ -179,10 +211,38 @@ public class GraphTask {
       }
 
       public Arc createArc (String aid, Vertex from, Vertex to) {
-         Arc res = new Arc (aid);
-         res.next = from.first;
+         return createArc (aid, from, to, 0);
+      }
+
+      /**
+       * Create an arc with a flow limit together with its reverse arc in
+       * constant time. If the last arc added to "from" is the unused
+       * reverse arc of an arc from "to" to "from", it becomes the new arc,
+       * otherwise a reverse arc with zero limit is added to "to". So the
+       * two arcs of a two-directional edge should be created one after
+       * the other; otherwise they get two reverse arcs, which gives the
+       * same flows with two more arcs.
+       * @param aid arc id
+       * @param from source vertex
+       * @param to target vertex
+       * @param limit flow limit of the arc
+       * @return created arc
+       */
+      public Arc createArc (String aid, Vertex from, Vertex to, int limit) {
+         Arc last = from.first;
+         if (last != null && last.residual && last.target == to) {
+            last.id = aid;
+            last.limit = limit;
+            last.residual = false;
+            return last;
+         }
+         Arc res = new Arc (aid, to, from.first, limit);
          from.first = res;
-         res.target = to;
+         Arc r = new Arc (aid + "'", from, to.first, 0);
+         to.first = r;
+         r.residual = true;
+         res.reverse = r;
+         r.reverse = res;
          return res;
       }
 
@@ -225,8 +285,8 @@ public class GraphTask {
             int i = v.info;
             Arc a = v.first;
             while (a != null) {
-               int j = a.target.info;
-               res [i][j]++;
+               if (!a.residual)
+                  res [i][a.target.info]++;
                a = a.next;
             }
             v = v.next;
@@ -277,6 +337,32 @@ public class GraphTask {
       }
 
 
+      /**
+       * Set the listener that is told about every augmenting path found by
+       * maxFlow. Push-relabel does not use augmenting paths and never calls it.
+       * @param listener flow listener, null for none
+       */
+      public void setFlowListener(FlowListener listener){
+         this.listener = listener;
+      }
+
+      /**
+       * Listener that prints the residual graph reachable from a given vertex,
+       * the capacity and the arcs of every augmenting path.
+       * In the printout A is the arc ID, l the flow limit of the arc and f the
+       * current flow through the arc (negative if in opposite direction of the arc).
+       * @param s first vertex of the residual graph printed
+       * @return printing listener
+       */
+      public FlowListener tracer(Vertex s){
+         Graph g = new Graph("residual graph", s);
+         return (path, bottleneck) -> {
+            System.out.println(g);
+            System.out.println("augmenting path capacity: " + bottleneck);
+            System.out.println("found augmenting path: " + path);
+         };
+      }
+
       /**
        * Find max flow from source vertex to sink vertex
        * @param s source vertex
@@ -285,59 +371,464 @@ public class GraphTask {
        */
       public int maxFlow (Vertex s, Vertex t){
 
-         Graph g = new Graph("residual graph", s);
-         System.out.println("--------------------------------");
-         System.out.println("A: Arc ID.");
-         System.out.println("l: flow limit of the arc.");
-         System.out.println("f: current flow through the arc.(negative if in opposite direction of the arc)");
-         System.out.println("initial graph: ");
-         System.out.println(g);
-
-         bfsIteration = 0;
          int maxFlow = 0;
          ArrayList<Arc> path = new ArrayList<>();
-         ArrayList<Arc> residualPath = new ArrayList<>();
 
-         Vertex tempV1;
-         Vertex tempV2;
          s.leading = null;
 
          while (bfs(s, t)){
             path.clear();
-            residualPath.clear();
 
             int pathCapacity = Integer.MAX_VALUE;
-            tempV1 =t;
-            tempV2 =t.leading;
-            while (tempV2 != null){
-               path.add(findArc(tempV2, tempV1));
-               residualPath.add(findArc(tempV1, tempV2));
+            Arc tempA = t.leading;
+            while (tempA != null){
+               path.add(tempA);
 
-               int tempCap = path.get(path.size() - 1).capacity();
+               int tempCap = tempA.capacity();
                if (tempCap < pathCapacity){
                   pathCapacity = tempCap;
                }
 
-               tempV1 = tempV2;
-               tempV2 = tempV1.leading;
+               tempA = tempA.reverse.target.leading;
             }
             for (Arc arc : path) {
-               arc.flow += pathCapacity;
-            }
-            for (Arc arc : residualPath) {
-               arc.flow -= pathCapacity;
+               push(arc, pathCapacity);
             }
             maxFlow += pathCapacity;
 
-            System.out.println(g);
-            System.out.println("augmenting path capacity: "+ pathCapacity);
-            System.out.println("found augmenting path: " + path);
+            if (listener != null){
+               ArrayList<Arc> forward = new ArrayList<>(path);
+               Collections.reverse(forward);
+               listener.onAugment(forward, pathCapacity);
+            }
+         }
+
+         return maxFlow;
+      }
+
+      /**
+       * Find max flow from source vertex to sink vertex using a given algorithm.
+       * Flows left by earlier runs are cleared first, so that all algorithms
+       * can be run on the same graph.
+       * Side effect: corrupts info fields of the vertices and arcs reachable from s
+       * @param s source vertex
+       * @param t sink vertex
+       * @param strategy max flow algorithm
+       * @return max flow from s to t
+       */
+      public int maxFlow(Vertex s, Vertex t, FlowAlgorithm strategy){
+         Vertex[] vert = indexVertices(s);
+         for (Vertex v : vert){
+            for (Arc a = v.first; a != null; a = a.next){
+               a.flow = 0;
+            }
+         }
+         if (s == t || !t.isVisited(bfsIteration)){return 0;}
+         switch (strategy){
+            case DINIC:
+               return dinic(s, t, vert);
+            case PUSH_RELABEL:
+               return pushRelabel(s, t, vert);
+            default:
+               return maxFlow(s, t);
+         }
+      }
+
+      /**
+       * Number the vertices reachable from s by arcs, s gets number 0.
+       * Side effect: vertex info fields hold the numbers
+       * @param s first vertex
+       * @return reachable vertices, indexed by their numbers
+       */
+      private Vertex[] indexVertices(Vertex s){
+         ArrayList<Vertex> res = new ArrayList<>();
+         bfsIteration++;
+         s.visitVertex(bfsIteration);
+         res.add(s);
+         for (int i = 0; i < res.size(); i++){
+            Vertex v = res.get(i);
+            v.info = i;
+            for (Arc a = v.first; a != null; a = a.next){
+               if (!a.target.isVisited(bfsIteration)){
+                  a.target.visitVertex(bfsIteration);
+                  res.add(a.target);
+               }
+            }
+         }
+         return res.toArray(new Vertex[0]);
+      }
+
+      /**
+       * Number the arcs of given vertices in order of the vertices.
+       * Side effect: arc info fields hold the numbers
+       * @param vert vertices
+       * @return number of arcs
+       */
+      private int indexArcs(Vertex[] vert){
+         int m = 0;
+         for (Vertex v : vert){
+            for (Arc a = v.first; a != null; a = a.next){
+               a.info = m++;
+            }
+         }
+         return m;
+      }
+
+      /**
+       * Create an immutable compressed sparse row copy of this graph.
+       * Vertices are numbered in the order of the vertex list, every arc
+       * must lead to a vertex of the list.
+       * Side effect: corrupts info fields in the graph
+       * @return CSR form of the graph
+       */
+      public CsrGraph toCsr(){
+         ArrayList<Vertex> list = new ArrayList<>();
+         for (Vertex v = first; v != null; v = v.next){
+            list.add(v);
          }
+         return toCsr(list.toArray(new Vertex[0]));
+      }
 
-         System.out.println("max flow: " + maxFlow);
+      /**
+       * Create an immutable compressed sparse row copy of given vertices
+       * and their arcs. The CSR number of a vertex is its index in vert,
+       * every arc must lead to a vertex of vert.
+       * Side effect: corrupts info fields of the vertices and their arcs
+       * @param vert vertices, each at most once
+       * @return CSR form of the vertices and arcs
+       */
+      public CsrGraph toCsr(Vertex[] vert){
+         bfsIteration++;
+         for (int i = 0; i < vert.length; i++){
+            if (vert[i].isVisited(bfsIteration)){
+               throw new IllegalArgumentException("Vertex " + vert[i] + " is given twice");
+            }
+            vert[i].info = i;
+            vert[i].visitVertex(bfsIteration);
+         }
+         int m = indexArcs(vert);
+         int[] offsets = new int[vert.length + 1];
+         int[] targets = new int[m];
+         int[] capacity = new int[m];
+         int[] reverseArcIndex = new int[m];
+         for (Vertex v : vert){
+            offsets[v.info + 1] = offsets[v.info];
+            for (Arc a = v.first; a != null; a = a.next){
+               if (!a.target.isVisited(bfsIteration)){
+                  throw new IllegalArgumentException("Arc " + a + " leads out of graph " + id);
+               }
+               targets[a.info] = a.target.info;
+               capacity[a.info] = a.limit;
+               reverseArcIndex[a.info] = a.reverse.info;
+               offsets[v.info + 1]++;
+            }
+         }
+         return new CsrGraph(offsets, targets, capacity, reverseArcIndex);
+      }
+
+      /**
+       * Send flow through an arc and take it from the reverse arc.
+       * @param a arc
+       * @param amount amount of flow
+       */
+      private void push(Arc a, int amount){
+         a.flow += amount;
+         a.reverse.flow -= amount;
+      }
+
+      /**
+       * Dinic's algorithm: bfs builds the level graph of the residual graph,
+       * then a blocking flow is found by depth first search along arcs going
+       * one level up. Every vertex keeps a pointer to its current arc, so
+       * arcs that lead to dead ends are not tried again in the same phase.
+       * @param s source vertex
+       * @param t sink vertex
+       * @param vert indexed vertices
+       * @return max flow from s to t
+       */
+      private int dinic(Vertex s, Vertex t, Vertex[] vert){
+         int n = vert.length;
+         int[] level = new int[n];
+         Arc[] current = new Arc[n];
+         Arc[] pathArcs = new Arc[n];
+         Vertex[] pathVertices = new Vertex[n];
+         int maxFlow = 0;
+
+         while (levelGraph(s, t, vert, level)){
+            for (Vertex v : vert){
+               current[v.info] = v.first;
+            }
+            int depth = 0;
+            Vertex v = s;
+            while (true){
+               if (v == t){
+                  int pathCapacity = Integer.MAX_VALUE;
+                  for (int i = 0; i < depth; i++){
+                     pathCapacity = Math.min(pathCapacity, pathArcs[i].capacity());
+                  }
+                  int saturated = depth;
+                  for (int i = depth - 1; i >= 0; i--){
+                     push(pathArcs[i], pathCapacity);
+                     if (pathArcs[i].capacity() == 0){saturated = i;}
+                  }
+                  maxFlow += pathCapacity;
+                  if (listener != null){
+                     listener.onAugment(Arrays.asList(Arrays.copyOf(pathArcs, depth)), pathCapacity);
+                  }
+                  // continue from the tail of the first saturated arc
+                  depth = saturated;
+                  v = pathVertices[saturated];
+                  continue;
+               }
+               Arc a = current[v.info];
+               while (a != null && (a.capacity() <= 0 || level[a.target.info] != level[v.info] + 1)){
+                  a = a.next;
+               }
+               current[v.info] = a;
+               if (a != null){
+                  pathVertices[depth] = v;
+                  pathArcs[depth++] = a;
+                  v = a.target;
+               } else {
+                  if (depth == 0){break;}
+                  v = pathVertices[--depth];
+                  current[v.info] = current[v.info].next;
+               }
+            }
+         }
          return maxFlow;
       }
 
+      /**
+       * Breadth first search in the residual graph computing the distance
+       * of every vertex from s.
+       * @param s source vertex
+       * @param t sink vertex
+       * @param vert indexed vertices
+       * @param level distances from s, -1 for unreachable vertices
+       * @return true if sink vertex is reached, false if cannot be reached.
+       */
+      private boolean levelGraph(Vertex s, Vertex t, Vertex[] vert, int[] level){
+         Arrays.fill(level, -1);
+         Queue<Vertex> queue = new ArrayDeque<>();
+         queue.add(s);
+         level[s.info] = 0;
+         while (queue.peek() != null){
+            Vertex currV = queue.poll();
+            for (Arc a = currV.first; a != null; a = a.next){
+               if (a.capacity() > 0 && level[a.target.info] < 0){
+                  level[a.target.info] = level[currV.info] + 1;
+                  queue.add(a.target);
+               }
+            }
+         }
+         return level[t.info] >= 0;
+      }
+
+      /**
+       * Highest-label push-relabel. Excess is pushed along admissible arcs
+       * (residual arcs going one level down), the vertex with the highest
+       * label is always discharged first. Gap heuristic: when no vertex is
+       * left on some level below n, the vertices above it cannot reach the
+       * sink any more and are lifted above the source at once. Global
+       * relabeling: after every n relabels the labels are recomputed as
+       * exact residual distances to the sink (or to the source) by a
+       * backward bfs. Excess that cannot reach the sink flows back to the
+       * source, so the result is a valid flow.
+       * @param s source vertex
+       * @param t sink vertex
+       * @param vert indexed vertices
+       * @return max flow from s to t
+       */
+      private int pushRelabel(Vertex s, Vertex t, Vertex[] vert){
+         int n = vert.length;
+         int[] height = new int[n];
+         long[] excess = new long[n];
+         Arc[] current = new Arc[n];
+         int[] count = new int[2 * n];
+         int[] bucket = new int[2 * n];   // active vertices of each height as linked stacks
+         int[] nextActive = new int[n];
+
+         for (Arc a = s.first; a != null; a = a.next){
+            int amount = a.capacity();
+            if (amount > 0){
+               push(a, amount);
+               excess[a.target.info] += amount;
+               excess[s.info] -= amount;
+            }
+         }
+         int maxHeight = globalRelabel(s, t, vert, height, count, current, excess, bucket, nextActive);
+         int relabels = 0;
+
+         while (maxHeight >= 0){
+            int i = bucket[maxHeight];
+            if (i < 0){
+               maxHeight--;
+               continue;
+            }
+            bucket[maxHeight] = nextActive[i];
+            Vertex v = vert[i];
+            if (height[i] != maxHeight){
+               // lifted by the gap heuristic while waiting
+               nextActive[i] = bucket[height[i]];
+               bucket[height[i]] = i;
+               maxHeight = Math.max(maxHeight, height[i]);
+               continue;
+            }
+
+            // discharge v
+            while (excess[i] > 0){
+               Arc a = current[i];
+               if (a == null){
+                  int oldHeight = height[i];
+                  int newHeight = 2 * n - 1;
+                  for (Arc b = v.first; b != null; b = b.next){
+                     if (b.capacity() > 0){newHeight = Math.min(newHeight, height[b.target.info] + 1);}
+                  }
+                  count[oldHeight]--;
+                  height[i] = newHeight;
+                  count[newHeight]++;
+                  current[i] = v.first;
+                  relabels++;
+                  if (oldHeight < n && count[oldHeight] == 0){
+                     for (Vertex u : vert){
+                        int h = height[u.info];
+                        if (h > oldHeight && h < n){
+                           count[h]--;
+                           height[u.info] = n + 1;
+                           count[n + 1]++;
+                           current[u.info] = u.first;
+                        }
+                     }
+                  }
+                  continue;
+               }
+               int j = a.target.info;
+               if (a.capacity() > 0 && height[i] == height[j] + 1){
+                  int amount = (int) Math.min(excess[i], a.capacity());
+                  push(a, amount);
+                  excess[i] -= amount;
+                  if (excess[j] == 0 && a.target != s && a.target != t){
+                     nextActive[j] = bucket[height[j]];
+                     bucket[height[j]] = j;
+                     maxHeight = Math.max(maxHeight, height[j]);
+                  }
+                  excess[j] += amount;
+               } else {
+                  current[i] = a.next;
+               }
+            }
+            maxHeight = Math.max(maxHeight, height[i]);
+            if (relabels >= n){
+               relabels = 0;
+               maxHeight = globalRelabel(s, t, vert, height, count, current, excess, bucket, nextActive);
+            }
+         }
+         return (int) excess[t.info];
+      }
+
+      /**
+       * Set labels of push-relabel to exact residual distances: to the sink
+       * for vertices that can reach it, n + distance to the source for the
+       * others, 2n - 1 for vertices reaching neither. Rebuilds the counts of
+       * labels and the stacks of active vertices and resets current arcs.
+       * @param s source vertex
+       * @param t sink vertex
+       * @param vert indexed vertices
+       * @param height labels
+       * @param count number of vertices with each label
+       * @param current current arcs
+       * @param excess excess flow of each vertex
+       * @param bucket top of the stack of active vertices for each label, -1 if empty
+       * @param nextActive next vertex in the same stack
+       * @return highest label of an active vertex, -1 if there are none
+       */
+      private int globalRelabel(Vertex s, Vertex t, Vertex[] vert, int[] height, int[] count,
+            Arc[] current, long[] excess, int[] bucket, int[] nextActive){
+         int n = vert.length;
+         Arrays.fill(height, -1);
+         height[t.info] = 0;
+         height[s.info] = n;
+         for (Vertex root : new Vertex[] {t, s}){
+            Queue<Vertex> queue = new ArrayDeque<>();
+            queue.add(root);
+            while (queue.peek() != null){
+               Vertex currV = queue.poll();
+               for (Arc a = currV.first; a != null; a = a.next){
+                  // residual arc from a.target to currV
+                  if (a.reverse.capacity() > 0 && height[a.target.info] < 0){
+                     height[a.target.info] = height[currV.info] + 1;
+                     queue.add(a.target);
+                  }
+               }
+            }
+         }
+         Arrays.fill(count, 0);
+         Arrays.fill(bucket, -1);
+         int maxHeight = -1;
+         for (Vertex v : vert){
+            int i = v.info;
+            if (height[i] < 0){height[i] = 2 * n - 1;}
+            count[height[i]]++;
+            current[i] = v.first;
+            if (excess[i] > 0 && v != s && v != t){
+               nextActive[i] = bucket[height[i]];
+               bucket[height[i]] = i;
+               maxHeight = Math.max(maxHeight, height[i]);
+            }
+         }
+         return maxHeight;
+      }
+
+      /**
+       * Find the vertices reachable from a given vertex in the residual graph
+       * of the current flow.
+       * Side effect: exactly the reachable vertices are visited on the
+       * current bfs iteration
+       * @param s start vertex
+       * @return reachable vertices in breadth first order, s first
+       */
+      public List<Vertex> residualReachable(Vertex s){
+         ArrayList<Vertex> res = new ArrayList<>();
+         bfsIteration++;
+         s.visitVertex(bfsIteration);
+         res.add(s);
+         for (int i = 0; i < res.size(); i++){
+            for (Arc a = res.get(i).first; a != null; a = a.next){
+               if (a.capacity() > 0 && !a.target.isVisited(bfsIteration)){
+                  a.target.visitVertex(bfsIteration);
+                  res.add(a.target);
+               }
+            }
+         }
+         return res;
+      }
+
+      /**
+       * Minimum cut between source and sink vertex for the flow left by
+       * maxFlow, the flow is not computed again. The source side consists
+       * of the vertices reachable from s in the residual graph, the cut
+       * arcs lead from there to the other vertices and are saturated.
+       * @param s source vertex
+       * @param t sink vertex
+       * @return minimum s-t cut
+       */
+      public MinCut minCut(Vertex s, Vertex t){
+         List<Vertex> sourceSide = residualReachable(s);
+         if (t.isVisited(bfsIteration)){
+            throw new IllegalArgumentException("Flow from " + s + " to " + t + " is not maximal, run maxFlow first");
+         }
+         ArrayList<Arc> arcs = new ArrayList<>();
+         for (Vertex v : sourceSide){
+            for (Arc a = v.first; a != null; a = a.next){
+               if (a.limit > 0 && !a.target.isVisited(bfsIteration)){
+                  arcs.add(a);
+               }
+            }
+         }
+         return new MinCut(sourceSide, arcs);
+      }
+
       /**
        * Find arc from one given vertex to another given vertex
        * @param v1 source vertex
@@ -356,7 +847,8 @@ public class GraphTask {
 
       /**
        * Breadth first search to get the shortest augmentation path from source to sink.
-       * Side effect: corrupts "leading" fields of vertexes in the graph
+       * Side effect: corrupts "leading" fields of vertexes in the graph, each
+       * holds the arc the vertex was reached by
        * @param s source vertex
        * @param t sink vertex
        * @return true if sink vertex is reached, false if cannot be reached.
@@ -375,7 +867,7 @@ public class GraphTask {
                if (currA.capacity() > 0 && !currA.target.isVisited(bfsIteration)) {
                   currA.target.visitVertex(bfsIteration);
                   queue.add(currA.target);
-                  currA.target.leading = currV;
+                  currA.target.leading = currA;
 
                   if (currA.target == t){return true;}
                }
@@ -386,216 +878,170 @@ public class GraphTask {
          return false;
       }
 
-      public void createTestGraph1 () {
-
-         Vertex v5 = new Vertex("5");
-         Vertex v4 = new Vertex("4", v5, null);
-         Vertex v3 = new Vertex("3", v4, null);
-         Vertex v2 = new Vertex("2", v3, null);
-         Vertex v1 = new Vertex("1", v2, null);
-         Vertex v0 = new Vertex("0", v1, null);
+      /**
+       * Build test graph 1 and find its max flow.
+       * @param strategy max flow algorithm
+       * @return max flow from v0 to v5
+       */
+      public int createTestGraph1 (FlowAlgorithm strategy) {
 
-         Arc a0 = new Arc("0", v1, null, 16);
-         Arc a1 = new Arc("1", v2, a0, 13);
-         v0.first = a1;
+         Graph g = new Graph("g1");
+         Vertex v5 = g.createVertex("5");
+         Vertex v4 = g.createVertex("4");
+         Vertex v3 = g.createVertex("3");
+         Vertex v2 = g.createVertex("2");
+         Vertex v1 = g.createVertex("1");
+         Vertex v0 = g.createVertex("0");
 
-         Arc a2 = new Arc("2", v0, null, 0);
-         Arc a3 = new Arc("3", v2, a2, 10);
-         Arc a4 = new Arc("4", v3, a3, 12);
-         v1.first = a4;
+         g.createArc("0", v0, v1, 16);
+         g.createArc("1", v0, v2, 13);
 
-         Arc a5 = new Arc("5", v0, null, 0);
-         Arc a6 = new Arc("6", v1, a5, 4);
-         Arc a7 = new Arc("7", v3, a6, 0);
-         Arc a8 = new Arc("8", v4, a7, 14);
-         v2.first = a8;
+         g.createArc("3", v1, v2, 10);
+         g.createArc("6", v2, v1, 4);
+         g.createArc("4", v1, v3, 12);
 
-         Arc a9 = new Arc("9", v1, null, 0);
-         Arc a10 = new Arc("10",v2 , a9, 9);
-         Arc a11 = new Arc("11", v4, a10, 0);
-         Arc a12 = new Arc("12", v5, a11, 20);
-         v3.first = a12;
+         g.createArc("8", v2, v4, 14);
 
-         Arc a13 = new Arc("13", v2, null, 0);
-         Arc a14 = new Arc("14", v3 , a13, 7);
-         Arc a15 = new Arc("15", v5 , a14, 4);
-         v4.first = a15;
+         g.createArc("10", v3, v2, 9);
+         g.createArc("12", v3, v5, 20);
 
-         Arc a16 = new Arc("16", v3, null, 0);
-         Arc a17 = new Arc("17", v4, a16, 0);
-         v5.first = a17;
+         g.createArc("14", v4, v3, 7);
+         g.createArc("15", v4, v5, 4);
 
-         maxFlow (v0, v5);
+         return maxFlow (v0, v5, strategy);
 
       }
 
-      public void createTestGraph2 () {
+      /**
+       * Build test graph 2 and find its max flow.
+       * @param strategy max flow algorithm
+       * @return max flow from v0 to v7
+       */
+      public int createTestGraph2 (FlowAlgorithm strategy) {
 
-         Vertex v7 = new Vertex("7");
-         Vertex v6 = new Vertex("6", v7, null);
-         Vertex v5 = new Vertex("5", v6, null);
-         Vertex v4 = new Vertex("4", v5, null);
-         Vertex v3 = new Vertex("3", v4, null);
-         Vertex v2 = new Vertex("2", v3, null);
-         Vertex v1 = new Vertex("1", v2, null);
-         Vertex v0 = new Vertex("0", v1, null);
+         Graph g = new Graph("g2");
+         Vertex v7 = g.createVertex("7");
+         Vertex v6 = g.createVertex("6");
+         Vertex v5 = g.createVertex("5");
+         Vertex v4 = g.createVertex("4");
+         Vertex v3 = g.createVertex("3");
+         Vertex v2 = g.createVertex("2");
+         Vertex v1 = g.createVertex("1");
+         Vertex v0 = g.createVertex("0");
 
-         Arc a0 = new Arc("0", v1, null, 21);
-         Arc a1 = new Arc("1", v3, a0, 15);
-         v0.first = a1;
+         g.createArc("0", v0, v1, 21);
+         g.createArc("1", v0, v3, 15);
 
-         Arc a2 = new Arc("2", v5, null, 11);
-         Arc a3 = new Arc("3", v0, a2, 0);
-         v1.first = a3;
+         g.createArc("2", v1, v5, 11);
+         g.createArc("14", v5, v1, 11);
 
-         Arc a4 = new Arc("4", v4, null, 12);
-         Arc a5 = new Arc("5", v5, a4, 3);
-         Arc a6 = new Arc("6", v3, a5, 5);
-         v2.first = a6;
+         g.createArc("4", v2, v4, 12);
+         g.createArc("11", v4, v2, 4);
+         g.createArc("5", v2, v5, 3);
+         g.createArc("6", v2, v3, 5);
+         g.createArc("7", v3, v2, 7);
 
-         Arc a7 = new Arc("7", v2, null, 7);
-         Arc a8 = new Arc("8", v6, a7, 16);
-         Arc a9 = new Arc("9", v0, a8, 0);
-         v3.first = a9;
+         g.createArc("8", v3, v6, 16);
 
-         Arc a10 = new Arc("10", v7, null, 18);
-         Arc a11 = new Arc("11", v2, a10, 4);
-         v4.first = a11;
+         g.createArc("10", v4, v7, 18);
 
-         Arc a12 = new Arc("12", v7, null, 25);
-         Arc a13 = new Arc("13", v2, a12, 0);
-         Arc a14 = new Arc("14", v1, a13, 11);
-         v5.first = a14;
+         g.createArc("12", v5, v7, 25);
 
-         Arc a15 = new Arc("15", v7, null, 13);
-         Arc a16 = new Arc("16", v3, a15, 0);
-         v6.first = a16;
+         g.createArc("15", v6, v7, 13);
 
-         Arc a17 = new Arc("17", v6, null, 0);
-         Arc a18 = new Arc("18", v5, a17, 0);
-         Arc a19 = new Arc("19", v4, a18, 0);
-         v7.first = a19;
-
-         maxFlow (v0, v7);
-
-      }
-
-      public void createTestGraph3 () {
-
-         Vertex v5 = new Vertex("5");
-         Vertex v4 = new Vertex("4", v5, null);
-         Vertex v3 = new Vertex("3", v4, null);
-         Vertex v2 = new Vertex("2", v3, null);
-         Vertex v1 = new Vertex("1", v2, null);
-         Vertex v0 = new Vertex("0", v1, null);
-
-         Arc a0 = new Arc("0", v1, null, 10);
-         Arc a1 = new Arc("1", v2, a0, 10);
-         v0.first = a1;
-
-         Arc a2 = new Arc("2", v3, null, 25);
-         Arc a3 = new Arc("3", v4, a2, 0);
-         Arc a4 = new Arc("4", v0, a3, 0);
-         v1.first = a4;
+         return maxFlow (v0, v7, strategy);
+
+      }
+
+      /**
+       * Build test graph 3 and find its max flow.
+       * @param strategy max flow algorithm
+       * @return max flow from v0 to v5
+       */
+      public int createTestGraph3 (FlowAlgorithm strategy) {
 
-         Arc a5 = new Arc("5", v4, null, 15);
-         Arc a6 = new Arc("6", v0, a5, 0);
-         v2.first = a6;
+         Graph g = new Graph("g3");
+         Vertex v5 = g.createVertex("5");
+         Vertex v4 = g.createVertex("4");
+         Vertex v3 = g.createVertex("3");
+         Vertex v2 = g.createVertex("2");
+         Vertex v1 = g.createVertex("1");
+         Vertex v0 = g.createVertex("0");
 
-         Arc a7 = new Arc("7", v5, null, 10);
-         Arc a8 = new Arc("8", v1, a7, 0);
-         v3.first = a8;
+         g.createArc("0", v0, v1, 10);
+         g.createArc("1", v0, v2, 10);
 
-         Arc a9 = new Arc("9", v5, null, 10);
-         Arc a10 = new Arc("10",v2 , a9, 0);
-         Arc a11 = new Arc("11", v1, a10, 6);
-         v4.first = a11;
+         g.createArc("2", v1, v3, 25);
 
-         Arc a12 = new Arc("12", v4, null, 0);
-         Arc a13 = new Arc("13", v3, a12, 0);
-         v5.first = a13;
+         g.createArc("5", v2, v4, 15);
 
-         maxFlow (v0, v5);
+         g.createArc("7", v3, v5, 10);
+
+         g.createArc("9", v4, v5, 10);
+         g.createArc("11", v4, v1, 6);
+
+         return maxFlow (v0, v5, strategy);
 
       }
 
-      public void createTestGraph4 () {
+      /**
+       * Build test graph 4 and find its max flow.
+       * @param strategy max flow algorithm
+       * @return max flow from v0 to v10
+       */
+      public int createTestGraph4 (FlowAlgorithm strategy) {
+
+         Graph g = new Graph("g4");
+         Vertex v10 = g.createVertex("10");
+         Vertex v9 = g.createVertex("9");
+         Vertex v8 = g.createVertex("8");
+         Vertex v7 = g.createVertex("7");
+         Vertex v6 = g.createVertex("6");
+         Vertex v5 = g.createVertex("5");
+         Vertex v4 = g.createVertex("4");
+         Vertex v3 = g.createVertex("3");
+         Vertex v2 = g.createVertex("2");
+         Vertex v1 = g.createVertex("1");
+         Vertex v0 = g.createVertex("0");
+
+         g.createArc("0", v0, v1, 5);
+         g.createArc("1", v0, v2, 10);
+         g.createArc("2", v0, v3, 5);
+
+         g.createArc("3", v1, v4, 10);
 
-         Vertex v10 = new Vertex("10");
-         Vertex v9 = new Vertex("9", v10, null);
-         Vertex v8 = new Vertex("8", v9, null);
-         Vertex v7 = new Vertex("7", v8, null);
-         Vertex v6 = new Vertex("6", v7, null);
-         Vertex v5 = new Vertex("5", v6, null);
-         Vertex v4 = new Vertex("4", v5, null);
-         Vertex v3 = new Vertex("3", v4, null);
-         Vertex v2 = new Vertex("2", v3, null);
-         Vertex v1 = new Vertex("1", v2, null);
-         Vertex v0 = new Vertex("0", v1, null);
-
-         Arc a0 = new Arc("0", v1, null, 5);
-         Arc a1 = new Arc("1", v2, a0, 10);
-         Arc a2 = new Arc("2", v3, a1, 5);
-         v0.first = a2;
+         g.createArc("6", v2, v1, 15);
+         g.createArc("7", v2, v5, 20);
 
-         Arc a3 = new Arc("3", v4, null, 10);
-         Arc a4 = new Arc("4", v2, a3, 0);
-         Arc a5 = new Arc("5", v0, a4, 0);
-         v1.first = a5;
+         g.createArc("10", v3, v6, 10);
 
-         Arc a6 = new Arc("6", v1, null, 15);
-         Arc a7 = new Arc("7", v5, a6, 20);
-         Arc a8 = new Arc("8", v0, a7, 0);
-         v2.first = a8;
+         g.createArc("12", v4, v7, 10);
+         g.createArc("14", v4, v5, 25);
 
-         Arc a9 = new Arc("9", v5, null, 0);
-         Arc a10 = new Arc("10", v6, a9, 10);
-         Arc a11 = new Arc("11", v0, a10, 0);
-         v3.first = a11;
+         g.createArc("17", v5, v8, 30);
+         g.createArc("18", v5, v3, 5);
 
-         Arc a12 = new Arc("12", v7, null, 10);
-         Arc a13 = new Arc("13", v8, a12, 0);
-         Arc a14 = new Arc("14", v5, a13, 25);
-         Arc a15 = new Arc("15", v1, a14, 0);
-         v4.first = a15;
+         g.createArc("20", v6, v8, 5);
+         g.createArc("21", v6, v9, 10);
 
-         Arc a16 = new Arc("16", v4, null, 0);
-         Arc a17 = new Arc("17", v8, a16, 30);
-         Arc a18 = new Arc("18", v3, a17, 5);
-         Arc a19 = new Arc("19", v2, a18, 0);
-         v5.first = a19;
+         g.createArc("23", v7, v10, 5);
 
-         Arc a20 = new Arc("20", v8, null, 5);
-         Arc a21 = new Arc("21", v9, a20, 10);
-         Arc a22 = new Arc("22", v3, a21, 0);
-         v6.first = a22;
+         g.createArc("25", v8, v10, 15);
+         g.createArc("26", v8, v9, 5);
+         g.createArc("29", v8, v4, 15);
 
-         Arc a23 = new Arc("23", v10, null, 5);
-         Arc a24 = new Arc("24", v4, a23, 0);
-         v7.first = a24;
+         g.createArc("31", v9, v10, 10);
 
-         Arc a25 = new Arc("25", v10, null, 15);
-         Arc a26 = new Arc("26", v9, a25, 5);
-         Arc a27 = new Arc("27", v6, a26, 0);
-         Arc a28 = new Arc("28", v5, a27, 0);
-         Arc a29 = new Arc("29", v4, a28, 15);
-         v8.first = a29;
-
-         Arc a30 = new Arc("30", v8, null, 0);
-         Arc a31 = new Arc("31", v10, a30, 10);
-         Arc a32 = new Arc("32", v6, a31, 0);
-         v9.first = a32;
-
-         Arc a33 = new Arc("33", v9, null, 0);
-         Arc a34 = new Arc("34", v8, a33, 0);
-         Arc a35 = new Arc("35", v7, a34, 0);
-         v10.first = a35;
-
-         maxFlow (v0, v10);
-
-      }
-
-      public void createTestGraph5 () {
+         return maxFlow (v0, v10, strategy);
+
+      }
+
+      /**
+       * Build a grid of 2500 vertices with random capacities and find its max flow.
+       * @param strategy max flow algorithm
+       * @return max flow from the first vertex to the last one
+       */
+      public int createTestGraph5 (FlowAlgorithm strategy) {
          Vertex vFirst = new Vertex("0");
          Graph g = new Graph("g5", vFirst);
 
@@ -628,7 +1074,7 @@ public class GraphTask {
             tempV2 = tempV2.next;
          }
 
-         maxFlow (vFirst, vLast);
+         return maxFlow (vFirst, vLast, strategy);
       }
 
       /**
@@ -640,16 +1086,188 @@ public class GraphTask {
        */
       public int makeRandomCapArc (Vertex v1, Vertex v2, int arcIndex) {
 
-         Arc tempA = v1.first;
+         createArc(String.valueOf(arcIndex++), v1, v2, (int)(Math.random()*995 + 5));
+         createArc(String.valueOf(arcIndex++), v2, v1, (int)(Math.random()*995 + 5));
 
-         Arc a1 = new Arc(String.valueOf(arcIndex++), v2, tempA, (int)(Math.random()*995 + 5));
-         v1.first = a1;
+         return arcIndex;
+      }
+   }
 
-         tempA = v2.first;
-         a1 = new Arc(String.valueOf(arcIndex++), v1, tempA, (int)(Math.random()*995 + 5));
-         v2.first = a1;
 
-         return arcIndex;
+   /** Minimum s-t cut: the vertices on the source side and the arcs
+    * leading from them to the sink side. Its capacity equals the max flow.
+    */
+   class MinCut {
+
+      private final List<Vertex> sourceSide;
+      private final List<Arc> arcs;
+
+      MinCut (List<Vertex> sourceSide, List<Arc> arcs) {
+         this.sourceSide = Collections.unmodifiableList(sourceSide);
+         this.arcs = Collections.unmodifiableList(arcs);
+      }
+
+      /** @return vertices on the source side, the source first */
+      public List<Vertex> getSourceSide(){
+         return sourceSide;
+      }
+
+      /** @return arcs from the source side to the sink side */
+      public List<Arc> getArcs(){
+         return arcs;
+      }
+
+      /** @return sum of the flow limits of the cut arcs */
+      public int capacity(){
+         int res = 0;
+         for (Arc a : arcs){
+            res += a.limit;
+         }
+         return res;
+      }
+
+      @Override
+      public String toString() {
+         return "cut " + arcs + ", capacity " + capacity() + ", source side " + sourceSide;
+      }
+   }
+
+
+   /** Immutable compressed sparse row (CSR) form of a graph. Vertices are
+    * numbered from 0, the arcs of vertex v are numbered from offsets[v] to
+    * offsets[v+1]-1 and described by parallel int arrays, so a traversal
+    * reads consecutive memory instead of following arc objects. Flows are
+    * kept outside in an int array indexed by arc numbers. Nothing of the
+    * linked graph is kept, the vertex numbers are given to Graph.toCsr.
+    */
+   static class CsrGraph {
+
+      private final int[] offsets;
+      private final int[] targets;
+      private final int[] capacity;
+      private final int[] reverseArcIndex;
+
+      /**
+       * @param offsets first arc of every vertex, followed by the number of arcs
+       * @param targets target vertex of every arc
+       * @param capacity flow limit of every arc
+       * @param reverseArcIndex reverse arc of every arc
+       */
+      CsrGraph(int[] offsets, int[] targets, int[] capacity, int[] reverseArcIndex){
+         this.offsets = offsets;
+         this.targets = targets;
+         this.capacity = capacity;
+         this.reverseArcIndex = reverseArcIndex;
+      }
+
+      /** @return number of vertices */
+      public int vertexCount(){
+         return offsets.length - 1;
+      }
+
+      /** @return number of arcs */
+      public int arcCount(){
+         return targets.length;
+      }
+
+      /**
+       * Find max flow from source vertex to sink vertex.
+       * @param s source vertex number
+       * @param t sink vertex number
+       * @return max flow from s to t
+       */
+      public int maxFlow(int s, int t){
+         return maxFlow(s, t, new int[arcCount()]);
+      }
+
+      /**
+       * Find max flow from source vertex to sink vertex by Dinic's algorithm
+       * on the arrays: bfs gives the level graph, blocking flows are found
+       * by an iterative depth first search with current-arc pointers.
+       * @param s source vertex number
+       * @param t sink vertex number
+       * @param flow array for the flow of every arc, negative if in opposite direction
+       * @return max flow from s to t
+       */
+      public int maxFlow(int s, int t, int[] flow){
+         int n = vertexCount();
+         if (s < 0 || s >= n || t < 0 || t >= n || flow.length != arcCount()){
+            throw new IllegalArgumentException("Wrong vertex numbers or flow array");
+         }
+         Arrays.fill(flow, 0);
+         if (s == t){return 0;}
+         int[] current = new int[n];
+         int[] path = new int[n];
+         int maxFlow = 0;
+         int[] level;
+         while ((level = bfs(s, flow))[t] >= 0){
+            System.arraycopy(offsets, 0, current, 0, n);
+            int depth = 0;
+            int v = s;
+            while (true){
+               if (v == t){
+                  int pathCapacity = Integer.MAX_VALUE;
+                  for (int i = 0; i < depth; i++){
+                     pathCapacity = Math.min(pathCapacity, capacity[path[i]] - flow[path[i]]);
+                  }
+                  int saturated = depth;
+                  for (int i = depth - 1; i >= 0; i--){
+                     int j = path[i];
+                     flow[j] += pathCapacity;
+                     flow[reverseArcIndex[j]] -= pathCapacity;
+                     if (flow[j] == capacity[j]){saturated = i;}
+                  }
+                  maxFlow += pathCapacity;
+                  // continue from the tail of the first saturated arc
+                  depth = saturated;
+                  v = depth == 0 ? s : targets[path[depth - 1]];
+                  continue;
+               }
+               int j = current[v];
+               int end = offsets[v + 1];
+               while (j < end && (capacity[j] - flow[j] <= 0 || level[targets[j]] != level[v] + 1)){
+                  j++;
+               }
+               current[v] = j;
+               if (j < end){
+                  path[depth++] = j;
+                  v = targets[j];
+               } else {
+                  if (depth == 0){break;}
+                  depth--;
+                  v = depth == 0 ? s : targets[path[depth - 1]];
+                  current[v]++;
+               }
+            }
+         }
+         return maxFlow;
+      }
+
+      /**
+       * Breadth first search in the residual graph of a flow.
+       * @param s start vertex number
+       * @param flow flow of every arc
+       * @return distance of every vertex from s, -1 if it cannot be reached
+       */
+      public int[] bfs(int s, int[] flow){
+         int[] res = new int[vertexCount()];
+         Arrays.fill(res, -1);
+         int[] queue = new int[res.length];
+         int head = 0;
+         int tail = 0;
+         queue[tail++] = s;
+         res[s] = 0;
+         while (head < tail){
+            int v = queue[head++];
+            for (int j = offsets[v]; j < offsets[v + 1]; j++){
+               int w = targets[j];
+               if (capacity[j] - flow[j] > 0 && res[w] < 0){
+                  res[w] = res[v] + 1;
+                  queue[tail++] = w;
+               }
+            }
+         }
+         return res;
       }
    }
 }
@@ -13,5 +13,169 @@ public class GraphTaskTest {
       assertTrue ("There are no tests", true);
    }
 
+   @Test (timeout=20000)
+   public void testFlowAlgorithmsAgree() {
+      GraphTask task = new GraphTask();
+      GraphTask.Graph g = task.new Graph ("G");
+      for (GraphTask.FlowAlgorithm alg : GraphTask.FlowAlgorithm.values()) {
+         assertEquals (alg + " on graph 1", 23, g.createTestGraph1 (alg));
+         assertEquals (alg + " on graph 2", 26, g.createTestGraph2 (alg));
+         assertEquals (alg + " on graph 3", 20, g.createTestGraph3 (alg));
+         assertEquals (alg + " on graph 4", 20, g.createTestGraph4 (alg));
+      }
+      Random rnd = new Random (7);
+      for (int round = 0; round < 30; round++) {
+         int n = 2 + rnd.nextInt (round < 25 ? 12 : 300);
+         GraphTask.Vertex[] v = randomNetwork (task, n, 4 * n, rnd);
+         GraphTask.Graph r = task.new Graph ("R", v[0]);
+         int dinic = r.maxFlow (v[0], v[n-1], GraphTask.FlowAlgorithm.DINIC);
+         assertEquals (" push-relabel differs from Dinic, round " + round, dinic,
+            r.maxFlow (v[0], v[n-1], GraphTask.FlowAlgorithm.PUSH_RELABEL));
+         if (round < 25)
+            assertEquals (" Edmonds-Karp differs from Dinic, round " + round, dinic,
+               r.maxFlow (v[0], v[n-1], GraphTask.FlowAlgorithm.EDMONDS_KARP));
+      }
+   }
+
+   @Test (timeout=20000)
+   public void testCsrMaxFlow() {
+      GraphTask task = new GraphTask();
+      Random rnd = new Random (11);
+      for (int round = 0; round < 30; round++) {
+         int n = 2 + rnd.nextInt (round < 25 ? 12 : 300);
+         GraphTask.Vertex[] v = randomNetwork (task, n, 4 * n, rnd);
+         GraphTask.Graph r = task.new Graph ("R", v[0]);
+         GraphTask.CsrGraph csr = r.toCsr();
+         assertEquals ("vertex count", n, csr.vertexCount());
+         int[] flow = new int [csr.arcCount()];
+         // toCsr numbers vertices in list order, which is the order of v
+         int s = 0;
+         int t = n - 1;
+         int res = csr.maxFlow (s, t, flow);
+         assertEquals (" CSR differs from Dinic, round " + round,
+            r.maxFlow (v[0], v[n-1], GraphTask.FlowAlgorithm.DINIC), res);
+         assertTrue (" sink reachable after max flow, round " + round, csr.bfs (s, flow)[t] < 0);
+         assertEquals (" repeated CSR max flow, round " + round, res, r.toCsr (v).maxFlow (s, t));
+      }
+   }
+
+   @Test (timeout=1000)
+   public void testReverseArcsCreated() {
+      GraphTask task = new GraphTask();
+      GraphTask.Graph g = task.new Graph ("G");
+      GraphTask.Vertex t = g.createVertex ("t");
+      GraphTask.Vertex b = g.createVertex ("b");
+      GraphTask.Vertex a = g.createVertex ("a");
+      GraphTask.Vertex s = g.createVertex ("s");
+      g.createArc ("sa", s, a, 4);
+      g.createArc ("sb", s, b, 2);
+      g.createArc ("at", a, t, 1);
+      g.createArc ("bt", b, t, 5);
+      g.createArc ("ab", a, b, 3);
+      int[][] adj = g.createAdjMatrix();
+      assertEquals ("reverse arc in adjacency matrix", 0, adj [1][0]);
+      assertEquals ("arc in adjacency matrix", 1, adj [0][1]);
+      GraphTask.Arc ba = g.createArc ("ba", b, a, 7);
+      assertEquals ("claimed reverse arc", "ba", ba.toString());
+      assertEquals ("claimed reverse arc capacity", 7, ba.capacity());
+      assertSame ("no new arc", ba, g.findArc (b, a));
+      assertEquals ("arcs with reverse arcs", 10, g.toCsr().arcCount());
+      g.createArc ("tb", t, b, 2);
+      assertEquals ("last reverse arc taken over", 10, g.toCsr().arcCount());
+      g.createArc ("ta", t, a, 2);
+      assertEquals ("only the last reverse arc is taken over", 12, g.toCsr().arcCount());
+      for (GraphTask.FlowAlgorithm alg : GraphTask.FlowAlgorithm.values())
+         assertEquals (alg.toString(), 6, g.maxFlow (s, t, alg));
+      assertEquals ("CSR", 6, g.toCsr (new GraphTask.Vertex[] {t, a, b, s}).maxFlow (3, 0));
+   }
+
+   @Test (timeout=1000)
+   public void testFlowListener() {
+      GraphTask task = new GraphTask();
+      GraphTask.Graph g = task.new Graph ("G");
+      GraphTask.Vertex t = g.createVertex ("t");
+      GraphTask.Vertex b = g.createVertex ("b");
+      GraphTask.Vertex a = g.createVertex ("a");
+      GraphTask.Vertex s = g.createVertex ("s");
+      g.createArc ("sa", s, a, 4);
+      g.createArc ("sb", s, b, 2);
+      g.createArc ("ab", a, b, 3);
+      g.createArc ("at", a, t, 1);
+      g.createArc ("bt", b, t, 5);
+      final int[] total = new int [1];
+      final List<String> paths = new ArrayList<>();
+      g.setFlowListener ((path, bottleneck) -> {
+         assertTrue ("positive bottleneck", bottleneck > 0);
+         paths.add (path.toString());
+         total [0] += bottleneck;
+      });
+      for (GraphTask.FlowAlgorithm alg : GraphTask.FlowAlgorithm.values()) {
+         total [0] = 0;
+         paths.clear();
+         assertEquals (alg.toString(), 6, g.maxFlow (s, t, alg));
+         if (alg != GraphTask.FlowAlgorithm.PUSH_RELABEL) {
+            assertEquals (alg + " sum of bottlenecks", 6, total [0]);
+            for (String path : paths)
+               assertTrue (alg + " path " + path, path.startsWith ("[s") && path.endsWith ("t]"));
+         } else {
+            assertTrue ("push-relabel has no paths", paths.isEmpty());
+         }
+      }
+      g.setFlowListener (null);
+      assertEquals ("without listener", 6, g.maxFlow (s, t, GraphTask.FlowAlgorithm.DINIC));
+   }
+
+   @Test (timeout=20000)
+   public void testMinCut() {
+      GraphTask task = new GraphTask();
+      GraphTask.Graph g = task.new Graph ("G");
+      GraphTask.Vertex t = g.createVertex ("t");
+      GraphTask.Vertex b = g.createVertex ("b");
+      GraphTask.Vertex a = g.createVertex ("a");
+      GraphTask.Vertex s = g.createVertex ("s");
+      g.createArc ("sa", s, a, 4);
+      g.createArc ("sb", s, b, 2);
+      g.createArc ("ab", a, b, 3);
+      g.createArc ("at", a, t, 1);
+      g.createArc ("bt", b, t, 5);
+      try {
+         g.minCut (s, t);
+         fail ("minCut before maxFlow");
+      } catch (IllegalArgumentException e) {
+      }
+      assertEquals ("max flow", 6, g.maxFlow (s, t, GraphTask.FlowAlgorithm.DINIC));
+      GraphTask.MinCut cut = g.minCut (s, t);
+      assertEquals ("cut", "[sb, sa]", cut.getArcs().toString());
+      assertEquals ("capacity", 6, cut.capacity());
+      assertEquals ("source side", "[s]", cut.getSourceSide().toString());
+      Random rnd = new Random (13);
+      for (int round = 0; round < 30; round++) {
+         int n = 2 + rnd.nextInt (round < 25 ? 12 : 300);
+         GraphTask.Vertex[] v = randomNetwork (task, n, 4 * n, rnd);
+         GraphTask.Graph r = task.new Graph ("R", v[0]);
+         for (GraphTask.FlowAlgorithm alg : GraphTask.FlowAlgorithm.values()) {
+            int flow = r.maxFlow (v[0], v[n-1], alg);
+            GraphTask.MinCut c = r.minCut (v[0], v[n-1]);
+            assertEquals (alg + " cut capacity, round " + round, flow, c.capacity());
+            assertFalse (alg + " sink on source side, round " + round, c.getSourceSide().contains (v[n-1]));
+         }
+      }
+   }
+
+   /** Random network, reverse arcs are created by createArc. */
+   static GraphTask.Vertex[] randomNetwork (GraphTask task, int n, int m, Random rnd) {
+      GraphTask.Graph g = task.new Graph ("random");
+      GraphTask.Vertex[] v = new GraphTask.Vertex [n];
+      for (int i = n-1; i >= 0; i--)
+         v[i] = g.createVertex ("v" + i);
+      for (int k = 0; k < m; k++) {
+         int i = rnd.nextInt (n);
+         int j = rnd.nextInt (n);
+         if (i != j)
+            g.createArc ("a" + i + "_" + j, v[i], v[j], rnd.nextInt (20));
+      }
+      return v;
+   }
+
 }
 
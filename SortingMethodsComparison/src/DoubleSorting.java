@@ -1,4 +1,13 @@
+import java.lang.management.ManagementFactory;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Comparison of sorting methods. The same array of double values is
@@ -17,6 +26,56 @@ public class DoubleSorting {
    /** number of competition rounds */
    static final int NUMBER_OF_ROUNDS = 4;
 
+   /** interval length below which merge sorts switch to insertion sort */
+   static final int INSERTION_SORT_CUTOFF = 32;
+
+   /**
+    * whether the sorting methods count comparisons, element moves and
+    * recursion depth, set by the system property doubleSorting.instrument;
+    * when false the JIT compiler removes all counting code
+    */
+   static final boolean INSTRUMENTED = Boolean.getBoolean("doubleSorting.instrument");
+
+   /**
+    * number of elements sorted at once by tiled merge sort, a tile and its
+    * part of the scratch buffer (256 KB together) fit into a typical L2
+    * cache
+    */
+   static final int TILE_SIZE = 1 << 14;
+
+   /** number of runs merged in one pass of tiled merge sort */
+   static final int MERGE_WAYS = 4;
+
+   /** maximal number of violation positions kept by verifyOrder */
+   static final int MAX_REPORTED_VIOLATIONS = 16;
+
+   /** interval length below which parallel merge sort runs sequentially */
+   static final int PARALLELISM_THRESHOLD = 8192;
+
+   /** number of sample elements per bucket in sample sort */
+   static final int OVERSAMPLING = 16;
+
+   /** maximal number of sample sort buckets, a power of two */
+   static final int MAX_BUCKETS = 256;
+
+   /** buckets per thread in sample sort, for load balancing */
+   static final int BUCKETS_PER_THREAD = 4;
+
+   /** number of key bits sorted in one radix sort pass */
+   static final int RADIX_BITS = 11;
+
+   /** minimal array length for which the adaptive sort uses radix sort */
+   static final int RADIX_SORT_THRESHOLD = 1 << 16;
+
+   /** average run length from which the adaptive sort uses natural merge sort */
+   static final int NATURAL_RUN_LENGTH = 64;
+
+   /** number of elements sampled by the adaptive sort */
+   static final int SAMPLE_SIZE = 256;
+
+   /** sampled distinct ratio below which the adaptive sort uses introsort */
+   static final double FEW_DISTINCT_RATIO = 0.25;
+
    /**
     * Main method.
     * 
@@ -38,49 +97,374 @@ public class DoubleSorting {
          rightLimit = 2 * rightLimit;
          System.out.println();
          System.out.println("Length: " + rightLimit);
+         if (INSTRUMENTED)
+            System.out.printf("%42s%11s%16s%16s%7s%14s%n", "", "", "comparisons", "moves", "depth", "bytes");
 
          acopy = Arrays.copyOf(origArray, rightLimit);
-         stime = System.nanoTime();
+         stime = startRun();
          insertionSort(acopy);
          ftime = System.nanoTime();
          diff = ftime - stime;
-         System.out.printf("%34s%11d%n", "Insertion sort: time (ms): ", diff / 1000000);
+         report("Insertion sort: time (ms): ", diff);
          checkOrder(acopy);
 
          acopy = Arrays.copyOf(origArray, rightLimit);
-         stime = System.nanoTime();
+         stime = startRun();
          binaryInsertionSort(acopy);
          ftime = System.nanoTime();
          diff = ftime - stime;
-         System.out.printf("%34s%11d%n", "Binary insertion sort: time (ms): ", diff / 1000000);
+         report("Binary insertion sort: time (ms): ", diff);
          checkOrder(acopy);
 
          acopy = Arrays.copyOf(origArray, rightLimit);
-         stime = System.nanoTime();
+         stime = startRun();
          mergeSort(acopy, 0, acopy.length);
          ftime = System.nanoTime();
          diff = ftime - stime;
-         System.out.printf("%34s%11d%n", "Merge sort: time (ms): ", diff / 1000000);
+         report("Merge sort: time (ms): ", diff);
+         checkOrder(acopy);
+
+         acopy = Arrays.copyOf(origArray, rightLimit);
+         stime = startRun();
+         parallelMergeSort(acopy, PARALLELISM_THRESHOLD);
+         ftime = System.nanoTime();
+         diff = ftime - stime;
+         report("Parallel merge sort: time (ms): ", diff);
+         checkOrder(acopy);
+
+         acopy = Arrays.copyOf(origArray, rightLimit);
+         stime = startRun();
+         SampleSortStats sampleStats = sampleSort(acopy, Runtime.getRuntime().availableProcessors());
+         ftime = System.nanoTime();
+         diff = ftime - stime;
+         report("Sample sort: time (ms): ", diff);
+         System.out.printf("%42s%s%n", "", sampleStats);
+         checkOrder(acopy);
+
+         acopy = Arrays.copyOf(origArray, rightLimit);
+         stime = startRun();
+         tiledMergeSort(acopy);
+         ftime = System.nanoTime();
+         diff = ftime - stime;
+         report("Tiled merge sort: time (ms): ", diff);
+         checkOrder(acopy);
+
+         acopy = Arrays.copyOf(origArray, rightLimit);
+         stime = startRun();
+         naturalMergeSort(acopy);
+         ftime = System.nanoTime();
+         diff = ftime - stime;
+         report("Natural merge sort: time (ms): ", diff);
          checkOrder(acopy);
 
          acopy = Arrays.copyOf(origArray, rightLimit);
-         stime = System.nanoTime();
+         stime = startRun();
          quickSort(acopy, 0, acopy.length);
          ftime = System.nanoTime();
          diff = ftime - stime;
-         System.out.printf("%34s%11d%n", "Quicksort: time (ms): ", diff / 1000000);
+         report("Quicksort: time (ms): ", diff);
+         checkOrder(acopy);
+
+         acopy = Arrays.copyOf(origArray, rightLimit);
+         stime = startRun();
+         parallelQuickSort(acopy, PARALLELISM_THRESHOLD);
+         ftime = System.nanoTime();
+         diff = ftime - stime;
+         report("Parallel quicksort: time (ms): ", diff);
+         checkOrder(acopy);
+
+         acopy = Arrays.copyOf(origArray, rightLimit);
+         stime = startRun();
+         introSort(acopy, 0, acopy.length);
+         ftime = System.nanoTime();
+         diff = ftime - stime;
+         report("Introsort: time (ms): ", diff);
          checkOrder(acopy);
 
          acopy = Arrays.copyOf(origArray, rightLimit);
-         stime = System.nanoTime();
+         stime = startRun();
+         radixSort(acopy);
+         ftime = System.nanoTime();
+         diff = ftime - stime;
+         report("Radix sort: time (ms): ", diff);
+         checkOrder(acopy);
+
+         acopy = Arrays.copyOf(origArray, rightLimit);
+         stime = startRun();
+         SortStats stats = sort(acopy);
+         ftime = System.nanoTime();
+         diff = ftime - stime;
+         report("Adaptive sort (" + stats.method + "): time (ms): ", diff);
+         checkOrder(acopy);
+
+         acopy = Arrays.copyOf(origArray, rightLimit);
+         stime = startRun();
          Arrays.sort(acopy);
          ftime = System.nanoTime();
          diff = ftime - stime;
-         System.out.printf("%34s%11d%n", "Java API  Arrays.sort: time (ms): ", diff / 1000000);
+         report("Java API  Arrays.sort: time (ms): ", diff);
+         checkOrder(acopy);
+
+         acopy = Arrays.copyOf(origArray, rightLimit);
+         stime = startRun();
+         Arrays.parallelSort(acopy);
+         ftime = System.nanoTime();
+         diff = ftime - stime;
+         report("Java API  Arrays.parallelSort: time (ms): ", diff);
          checkOrder(acopy);
       }
    }
 
+   /** Counters of the instrumented sorting methods. */
+   static class Counters {
+
+      static final LongAdder comparisons = new LongAdder();
+      static final LongAdder moves = new LongAdder();
+      static final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+      static final ThreadLocal<int[]> depth = ThreadLocal.withInitial(() -> new int[1]);
+      static long allocatedBefore = 0;
+
+      /** Set all counters to zero. */
+      static void reset() {
+         comparisons.reset();
+         moves.reset();
+         maxDepth.reset();
+      }
+   }
+
+   /**
+    * Start measuring one competitor.
+    * 
+    * @return start time in nanoseconds
+    */
+   static long startRun() {
+      if (INSTRUMENTED) {
+         Counters.reset();
+         Counters.allocatedBefore = allocatedBytes();
+      }
+      return System.nanoTime();
+   }
+
+   /**
+    * Print one row of the competition table, followed by the counters if
+    * instrumented. Allocated bytes are those of the main thread.
+    * 
+    * @param title
+    *           name of the sorting method
+    * @param diff
+    *           time in nanoseconds
+    */
+   static void report(String title, long diff) {
+      if (!INSTRUMENTED) {
+         System.out.printf("%42s%11d%n", title, diff / 1000000);
+         return;
+      }
+      long bytes = allocatedBytes() - Counters.allocatedBefore;
+      System.out.printf("%42s%11d%16d%16d%7d%14d%n", title, diff / 1000000, Counters.comparisons.sum(),
+            Counters.moves.sum(), Counters.maxDepth.get(), bytes);
+   }
+
+   /**
+    * Bytes allocated by the current thread so far.
+    * 
+    * @return allocated bytes, -1 if the JVM cannot count them
+    */
+   static long allocatedBytes() {
+      java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+      if (!(bean instanceof com.sun.management.ThreadMXBean))
+         return -1;
+      return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+   }
+
+   /**
+    * Compare two elements, counted if instrumented.
+    * 
+    * @param x
+    *           first element
+    * @param y
+    *           second element
+    * @return x &gt; y
+    */
+   private static boolean greater(double x, double y) {
+      if (INSTRUMENTED)
+         Counters.comparisons.increment();
+      return x > y;
+   }
+
+   /**
+    * Compare two elements, counted if instrumented.
+    * 
+    * @param x
+    *           first element
+    * @param y
+    *           second element
+    * @return x &lt; y
+    */
+   private static boolean smaller(double x, double y) {
+      if (INSTRUMENTED)
+         Counters.comparisons.increment();
+      return x < y;
+   }
+
+   /**
+    * Compare two elements for equality, counted if instrumented.
+    * 
+    * @param x
+    *           first element
+    * @param y
+    *           second element
+    * @return x == y
+    */
+   private static boolean same(double x, double y) {
+      if (INSTRUMENTED)
+         Counters.comparisons.increment();
+      return x == y;
+   }
+
+   /**
+    * Count comparisons and element moves done outside the helpers above.
+    * 
+    * @param comparisons
+    *           number of comparisons
+    * @param moves
+    *           number of elements written
+    */
+   static void count(long comparisons, long moves) {
+      if (INSTRUMENTED) {
+         Counters.comparisons.add(comparisons);
+         Counters.moves.add(moves);
+      }
+   }
+
+   /** Enter one level of recursion, the depth is kept per thread. */
+   private static void enter() {
+      if (INSTRUMENTED)
+         Counters.maxDepth.accumulate(++Counters.depth.get()[0]);
+   }
+
+   /** Leave one level of recursion. */
+   private static void leave() {
+      if (INSTRUMENTED)
+         Counters.depth.get()[0]--;
+   }
+
+   /** Decision and timing of one adaptive sort. */
+   public static class SortStats {
+
+      /** name of the chosen sorting method */
+      public final String method;
+      /** array length */
+      public final int length;
+      /** number of ascending runs */
+      public final int runs;
+      /** ratio of distinct values in the sample */
+      public final double distinctRatio;
+      /** time spent on analysing the input */
+      public final long analysisNanos;
+      /** time spent on sorting */
+      public final long sortNanos;
+
+      SortStats(String method, int length, int runs, double distinctRatio, long analysisNanos, long sortNanos) {
+         this.method = method;
+         this.length = length;
+         this.runs = runs;
+         this.distinctRatio = distinctRatio;
+         this.analysisNanos = analysisNanos;
+         this.sortNanos = sortNanos;
+      }
+
+      @Override
+      public String toString() {
+         return String.format("%s: length %d, runs %d, distinct %.2f, analysis %d us, sort %d us", method, length,
+               runs, distinctRatio, analysisNanos / 1000, sortNanos / 1000);
+      }
+   }
+
+   /**
+    * Adaptive sort. The input is analysed first: short arrays are sorted
+    * by insertion sort, arrays made of long ascending runs by natural
+    * merge sort, arrays with few distinct values by introsort, large
+    * arrays by radix sort and the rest by introsort. NaN values are moved
+    * to the end first, as in Arrays.sort, and the other values are sorted
+    * in front of them; -0.0 is put before 0.0, also as in Arrays.sort.
+    * 
+    * @param a
+    *           array to be sorted
+    * @return chosen method and timing
+    */
+   public static SortStats sort(double[] a) {
+      long stime = System.nanoTime();
+      // the comparison sorts cannot order NaN, a NaN pivot leaves parts unsorted
+      int n = moveNaNsToEnd(a);
+      String method;
+      int runs = 1;
+      double distinctRatio = 1.;
+      if (n <= INSERTION_SORT_CUTOFF) {
+         method = "insertion sort";
+      } else {
+         for (int i = 1; i < n; i++) {
+            if (a[i - 1] > a[i])
+               runs++;
+         }
+         count(n - 1, 0);
+         if ((long) runs * NATURAL_RUN_LENGTH <= n) {
+            method = "natural merge sort";
+         } else {
+            distinctRatio = sampledDistinctRatio(a, n);
+            if (distinctRatio < FEW_DISTINCT_RATIO)
+               method = "introsort";
+            else if (n >= RADIX_SORT_THRESHOLD)
+               method = "radix sort";
+            else
+               method = "introsort";
+         }
+      }
+      long mtime = System.nanoTime();
+      switch (method) {
+      case "insertion sort":
+         insertionSort(a, 0, n);
+         break;
+      case "natural merge sort":
+         naturalMergeSort(a, new double[n], n);
+         break;
+      case "radix sort":
+         radixSort(a);
+         break;
+      default:
+         introSort(a, 0, n);
+      }
+      // radix sort orders the zeros by their bits, the comparison sorts do not
+      if (!method.equals("radix sort"))
+         orderSignedZeros(a, n);
+      long ftime = System.nanoTime();
+      return new SortStats(method, a.length, runs, distinctRatio, mtime - stime, ftime - mtime);
+   }
+
+   /**
+    * Ratio of distinct values among SAMPLE_SIZE evenly spaced elements of
+    * the beginning of an array.
+    * 
+    * @param a
+    *           array
+    * @param n
+    *           length of the sampled beginning, positive
+    * @return number of distinct sampled values divided by sample size
+    */
+   static double sampledDistinctRatio(double[] a, int n) {
+      int m = Math.min(SAMPLE_SIZE, n);
+      double[] sample = new double[m];
+      long step = n / m;
+      for (int i = 0; i < m; i++)
+         sample[i] = a[(int) (i * step)];
+      insertionSort(sample);
+      int distinct = 1;
+      for (int i = 1; i < m; i++) {
+         if (sample[i] != sample[i - 1])
+            distinct++;
+      }
+      return (double) distinct / m;
+   }
+
    /**
     * Insertion sort.
     * 
@@ -88,17 +472,32 @@ public class DoubleSorting {
     *           array to be sorted
     */
    public static void insertionSort(double[] a) {
-      if (a.length < 2)
+      insertionSort(a, 0, a.length);
+   }
+
+   /**
+    * Insertion sort of an interval.
+    * 
+    * @param a
+    *           array to be sorted
+    * @param left
+    *           begin of an interval (included)
+    * @param right
+    *           end of an interval (excluded)
+    */
+   public static void insertionSort(double[] a, int left, int right) {
+      if ((right - left) < 2)
          return;
-      for (int i = 1; i < a.length; i++) {
+      for (int i = left + 1; i < right; i++) {
          double b = a[i];
          int j;
-         for (j = i - 1; j >= 0; j--) {
+         for (j = i - 1; j >= left; j--) {
             if (a[j] <= b)
                break;
             a[j + 1] = a[j];
          }
          a[j + 1] = b;
+         count(j < left ? i - 1 - j : i - j, i - j);
       }
    }
 
@@ -109,12 +508,47 @@ public class DoubleSorting {
     *           array to be sorted
     */
    public static void binaryInsertionSort(double[] a) {
-      // TODO!!!
-      for (int i=1; i<a.length; i++){
-         double temp = a[i];
-         int index = Math.abs(Arrays.binarySearch(a, 0, i, a[i]))-1;
-         System.arraycopy(a, index, a, index+1, i-index);
-         a[index]=temp;
+      binaryInsertionSort(a, 0, a.length);
+   }
+
+   /**
+    * Stable binary insertion sort of an interval. Each element is inserted
+    * after all equal elements. The insertion point is found by galloping
+    * left from the end of the sorted part and then by binary search, so
+    * nearly sorted input needs only a few comparisons per element.
+    * 
+    * @param a
+    *           array to be sorted
+    * @param from
+    *           begin of an interval (included)
+    * @param to
+    *           end of an interval (excluded)
+    */
+   public static void binaryInsertionSort(double[] a, int from, int to) {
+      for (int i = from + 1; i < to; i++) {
+         double b = a[i];
+         if (!greater(a[i - 1], b))
+            continue;
+         // invariant: a[hi] > b, insertion point is in (lo, hi]
+         int hi = i - 1;
+         int lo = hi - 1;
+         int step = 1;
+         while (lo >= from && greater(a[lo], b)) {
+            hi = lo;
+            step <<= 1;
+            lo = hi - step;
+         }
+         lo = Math.max(lo + 1, from);
+         while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (greater(a[mid], b))
+               hi = mid;
+            else
+               lo = mid + 1;
+         }
+         System.arraycopy(a, hi, a, hi + 1, i - hi);
+         a[hi] = b;
+         count(0, i - hi + 1);
       }
    }
 
@@ -133,10 +567,12 @@ public class DoubleSorting {
          return;
       if ((right - left) < 2)
          return;
+      enter();
       int k = (left + right) / 2;
       mergeSort(array, left, k);
       mergeSort(array, k, right);
       merge(array, left, k, right);
+      leave();
    }
 
    /**
@@ -160,7 +596,7 @@ public class DoubleSorting {
       int m = 0;
       while (true) {
          if ((n1 < k) && (n2 < right)) {
-            if (array[n1] > array[n2]) {
+            if (greater(array[n1], array[n2])) {
                tmp[m++] = array[n2++];
             } else {
                tmp[m++] = array[n1++];
@@ -180,61 +616,1626 @@ public class DoubleSorting {
          }
       }
       System.arraycopy(tmp, 0, array, left, right - left);
+      count(0, 2 * (right - left));
    }
 
    /**
-    * Sort a part of the array using quicksort method.
+    * Merge two intervals using a preallocated buffer. Nothing is done if
+    * the intervals are already in order.
     * 
     * @param array
-    *           array to be changed
-    * @param l
-    *           starting index (included)
-    * @param r
-    *           ending index (excluded)
+    *           original
+    * @param buffer
+    *           scratch space of the same length as array
+    * @param left
+    *           start1
+    * @param k
+    *           start2 = end1
+    * @param right
+    *           end2
     */
-   public static void quickSort(double[] array, int l, int r) {
-      if (array == null || array.length < 1 || l < 0 || r <= l)
-         throw new IllegalArgumentException("quickSort: wrong parameters");
-      if ((r - l) < 2)
+   static void merge(double[] array, double[] buffer, int left, int k, int right) {
+      if (!greater(array[k - 1], array[k]))
          return;
-      int i = l;
-      int j = r - 1;
-      double x = array[(i + j) / 2];
-      do {
-         while (array[i] < x)
-            i++;
-         while (x < array[j])
-            j--;
-         if (i <= j) {
-            double tmp = array[i];
-            array[i] = array[j];
-            array[j] = tmp;
-            i++;
-            j--;
+      int n1 = left;
+      int n2 = k;
+      int m = left;
+      while (n1 < k && n2 < right) {
+         if (greater(array[n1], array[n2])) {
+            buffer[m++] = array[n2++];
+         } else {
+            buffer[m++] = array[n1++];
          }
-      } while (i < j);
-      if (l < j)
-         quickSort(array, l, j + 1); // recursion for left part
-      if (i < r - 1)
-         quickSort(array, i, r); // recursion for right part
+      }
+      while (n1 < k)
+         buffer[m++] = array[n1++];
+      while (n2 < right)
+         buffer[m++] = array[n2++];
+      System.arraycopy(buffer, left, array, left, right - left);
+      count(0, 2 * (right - left));
    }
 
    /**
-    * Check whether an array is ordered.
+    * Parallel merge sort on the common fork/join pool. Intervals shorter
+    * than the threshold are sorted sequentially, all merges share one
+    * scratch buffer.
     * 
     * @param a
-    *           sorted (?) array
-    * @throws IllegalArgumentException
-    *            if an array is not ordered
+    *           array to be sorted
+    * @param parallelismThreshold
+    *           interval length below which no more tasks are forked
     */
-   static void checkOrder(double[] a) {
+   public static void parallelMergeSort(double[] a, int parallelismThreshold) {
+      if (a == null || parallelismThreshold < 1)
+         throw new IllegalArgumentException("parallelMergeSort: wrong parameters");
       if (a.length < 2)
          return;
-      for (int i = 0; i < a.length - 1; i++) {
-         if (a[i] > a[i + 1])
-            throw new IllegalArgumentException(
-                  "array not ordered: " + "a[" + i + "]=" + a[i] + " a[" + (i + 1) + "]=" + a[i + 1]);
+      double[] buffer = new double[a.length];
+      ForkJoinPool.commonPool().invoke(
+            new MergeSortTask(a, buffer, 0, a.length, parallelismThreshold));
+   }
+
+   /**
+    * Sequential merge sort with a preallocated buffer.
+    * 
+    * @param array
+    *           array to be sorted
+    * @param buffer
+    *           scratch space of the same length as array
+    * @param left
+    *           begin of an interval (included)
+    * @param right
+    *           end of an interval (excluded)
+    */
+   static void mergeSort(double[] array, double[] buffer, int left, int right) {
+      if ((right - left) <= INSERTION_SORT_CUTOFF) {
+         insertionSort(array, left, right);
+         return;
+      }
+      enter();
+      int k = (left + right) >>> 1;
+      mergeSort(array, buffer, left, k);
+      mergeSort(array, buffer, k, right);
+      merge(array, buffer, left, k, right);
+      leave();
+   }
+
+   /**
+    * Tiled merge sort with TILE_SIZE tiles and MERGE_WAYS-way merges.
+    * 
+    * @param a
+    *           array to be sorted
+    */
+   public static void tiledMergeSort(double[] a) {
+      tiledMergeSort(a, TILE_SIZE, MERGE_WAYS);
+   }
+
+   /**
+    * Bottom-up merge sort for arrays much larger than the cache. Every
+    * tile is first sorted by buffered merge sort while it stays in cache,
+    * then groups of sorted runs are merged several at a time, alternating
+    * between the array and one scratch buffer. With w-way merges the
+    * whole array is streamed through memory log_w(n / tile) times instead
+    * of log_2(n / tile) times.
+    * 
+    * @param a
+    *           array to be sorted
+    * @param tile
+    *           number of elements sorted in cache at once
+    * @param ways
+    *           number of runs merged in one pass, at least 2
+    */
+   public static void tiledMergeSort(double[] a, int tile, int ways) {
+      if (a == null || tile < 1 || ways < 2)
+         throw new IllegalArgumentException("tiledMergeSort: wrong parameters");
+      int n = a.length;
+      if (n < 2)
+         return;
+      double[] buffer = new double[n];
+      for (int l = 0; l < n; l += tile)
+         mergeSort(a, buffer, l, Math.min(n, l + tile));
+      double[] src = a;
+      double[] dst = buffer;
+      int[] pos = new int[ways];
+      int[] end = new int[ways];
+      for (long run = tile; run < n; run *= ways) {
+         for (long l = 0; l < n; l += run * ways) {
+            int k = 0;
+            for (long r = l; r < n && k < ways; r += run, k++) {
+               pos[k] = (int) r;
+               end[k] = (int) Math.min(n, r + run);
+            }
+            multiwayMerge(src, dst, pos, end, k, (int) l);
+         }
+         double[] tmp = src;
+         src = dst;
+         dst = tmp;
+      }
+      if (src != a) {
+         System.arraycopy(src, 0, a, 0, n);
+         count(0, n);
+      }
+   }
+
+   /**
+    * Merge adjacent sorted runs into another array. Of equal elements the
+    * one from the earlier run is taken first, as in merge.
+    * 
+    * @param src
+    *           array containing the runs
+    * @param dst
+    *           array for the merged elements
+    * @param pos
+    *           start of each run, changed
+    * @param end
+    *           end of each run (excluded), changed
+    * @param k
+    *           number of runs
+    * @param out
+    *           position of the first merged element in dst
+    */
+   static void multiwayMerge(double[] src, double[] dst, int[] pos, int[] end, int k, int out) {
+      int from = out;
+      while (k == 4) {
+         // two-level tournament: only the pair of the taken run is replayed
+         int u = greater(src[pos[0]], src[pos[1]]) ? 1 : 0;
+         int v = greater(src[pos[2]], src[pos[3]]) ? 3 : 2;
+         int best;
+         while (true) {
+            best = greater(src[pos[u]], src[pos[v]]) ? v : u;
+            dst[out++] = src[pos[best]++];
+            if (pos[best] == end[best])
+               break;
+            if (best < 2)
+               u = greater(src[pos[0]], src[pos[1]]) ? 1 : 0;
+            else
+               v = greater(src[pos[2]], src[pos[3]]) ? 3 : 2;
+         }
+         k--;
+         for (int j = best; j < k; j++) {
+            pos[j] = pos[j + 1];
+            end[j] = end[j + 1];
+         }
+      }
+      while (k > 1) {
+         int best = 0;
+         for (int j = 1; j < k; j++) {
+            if (greater(src[pos[best]], src[pos[j]]))
+               best = j;
+         }
+         dst[out++] = src[pos[best]++];
+         if (pos[best] == end[best]) {
+            // keep the remaining runs in their order
+            k--;
+            for (int j = best; j < k; j++) {
+               pos[j] = pos[j + 1];
+               end[j] = end[j + 1];
+            }
+         }
+      }
+      if (k == 1) {
+         System.arraycopy(src, pos[0], dst, out, end[0] - pos[0]);
+         out += end[0] - pos[0];
       }
+      count(0, out - from);
+   }
+
+   /**
+    * Natural merge sort. Allocates one scratch buffer for the whole sort.
+    * 
+    * @param a
+    *           array to be sorted
+    */
+   public static void naturalMergeSort(double[] a) {
+      naturalMergeSort(a, new double[a.length]);
+   }
+
+   /**
+    * Natural merge sort with a caller supplied scratch buffer, so that
+    * repeated sorts do not allocate at all. Already sorted (or strictly
+    * descending) runs of the input are kept, runs shorter than
+    * INSERTION_SORT_CUTOFF are extended by insertion sort, then adjacent
+    * runs are merged pairwise until one run is left.
+    * 
+    * @param a
+    *           array to be sorted
+    * @param buffer
+    *           scratch space, at least as long as a
+    */
+   public static void naturalMergeSort(double[] a, double[] buffer) {
+      if (a == null || buffer == null || buffer.length < a.length)
+         throw new IllegalArgumentException("naturalMergeSort: wrong parameters");
+      naturalMergeSort(a, buffer, a.length);
+   }
+
+   /**
+    * Natural merge sort of the beginning of an array.
+    * 
+    * @param a
+    *           array to be changed
+    * @param buffer
+    *           scratch space, at least n long
+    * @param n
+    *           number of elements to be sorted
+    */
+   private static void naturalMergeSort(double[] a, double[] buffer, int n) {
+      if (n < 2)
+         return;
+      for (int lo = 0; lo < n - 1;) {
+         int hi = lo + 1;
+         if (greater(a[hi - 1], a[hi])) {
+            while (hi < n && greater(a[hi - 1], a[hi]))
+               hi++;
+            reverse(a, lo, hi);
+         } else {
+            hi = runEnd(a, lo, n);
+         }
+         if ((hi - lo) < INSERTION_SORT_CUTOFF) {
+            hi = Math.min(n, lo + INSERTION_SORT_CUTOFF);
+            insertionSort(a, lo, hi);
+         }
+         lo = hi;
+      }
+      boolean merged;
+      do {
+         merged = false;
+         int lo = 0;
+         while (lo < n) {
+            int k = runEnd(a, lo, n);
+            if (k == n)
+               break;
+            int hi = runEnd(a, k, n);
+            merge(a, buffer, lo, k, hi);
+            merged = true;
+            lo = hi;
+         }
+      } while (merged);
+   }
+
+   /**
+    * Find the end of an ascending run.
+    * 
+    * @param a
+    *           array
+    * @param lo
+    *           start of the run
+    * @param n
+    *           end of the searched interval (excluded)
+    * @return first index after the run
+    */
+   private static int runEnd(double[] a, int lo, int n) {
+      int hi = lo + 1;
+      while (hi < n && !greater(a[hi - 1], a[hi]))
+         hi++;
+      return hi;
+   }
+
+   /**
+    * Reverse an interval of the array.
+    * 
+    * @param a
+    *           array to be changed
+    * @param left
+    *           begin of an interval (included)
+    * @param right
+    *           end of an interval (excluded)
+    */
+   private static void reverse(double[] a, int left, int right) {
+      for (int i = left, j = right - 1; i < j; i++, j--) {
+         double tmp = a[i];
+         a[i] = a[j];
+         a[j] = tmp;
+      }
+      count(0, 2 * ((right - left) / 2));
+   }
+
+   /**
+    * Fork/join task sorting one interval of the array. Each task writes
+    * only to its own interval of the shared buffer.
+    */
+   static class MergeSortTask extends RecursiveAction {
+
+      private static final long serialVersionUID = 1L;
+
+      private final double[] array;
+      private final double[] buffer;
+      private final int left;
+      private final int right;
+      private final int threshold;
+
+      MergeSortTask(double[] array, double[] buffer, int left, int right, int threshold) {
+         this.array = array;
+         this.buffer = buffer;
+         this.left = left;
+         this.right = right;
+         this.threshold = threshold;
+      }
+
+      @Override
+      protected void compute() {
+         if ((right - left) <= threshold) {
+            mergeSort(array, buffer, left, right);
+            return;
+         }
+         int k = (left + right) >>> 1;
+         invokeAll(new MergeSortTask(array, buffer, left, k, threshold),
+               new MergeSortTask(array, buffer, k, right, threshold));
+         merge(array, buffer, left, k, right);
+      }
+   }
+
+   /** Phase timings of one sample sort. */
+   public static class SampleSortStats {
+
+      /** number of threads */
+      public final int threads;
+      /** number of buckets */
+      public final int buckets;
+      /** number of equality buckets among them, they need no sorting */
+      public final int equalityBuckets;
+      /** time spent on drawing and sorting the sample */
+      public final long sampleNanos;
+      /** time spent on classifying elements into buckets */
+      public final long classifyNanos;
+      /** time spent on moving elements into their buckets */
+      public final long scatterNanos;
+      /** time spent on sorting the buckets */
+      public final long sortNanos;
+
+      SampleSortStats(int threads, int buckets, int equalityBuckets, long sampleNanos, long classifyNanos,
+            long scatterNanos, long sortNanos) {
+         this.threads = threads;
+         this.buckets = buckets;
+         this.equalityBuckets = equalityBuckets;
+         this.sampleNanos = sampleNanos;
+         this.classifyNanos = classifyNanos;
+         this.scatterNanos = scatterNanos;
+         this.sortNanos = sortNanos;
+      }
+
+      @Override
+      public String toString() {
+         return String.format(
+               "%d threads, %d buckets (%d equality), sample %d us, classify %d us, scatter %d us, sort %d us",
+               threads, buckets, equalityBuckets, sampleNanos / 1000, classifyNanos / 1000, scatterNanos / 1000,
+               sortNanos / 1000);
+      }
+   }
+
+   /**
+    * Parallel sample sort. Splitters are chosen from an oversampled,
+    * sorted random sample and stored as an implicit search tree; every
+    * thread classifies its part of the array by a branchless descent of
+    * that tree and counts bucket sizes. After a prefix sum the threads
+    * move their elements into a buffer, then the buckets are sorted
+    * independently by quickSort and copied back. There is no serial
+    * merge at the end. If the sample repeats a splitter, keys equal to a
+    * splitter get an equality bucket of their own, which is copied back
+    * in parts by all threads and not sorted; so inputs with few distinct
+    * values do not end up sorted by a single thread.
+    * 
+    * @param a
+    *           array to be sorted
+    * @param threads
+    *           number of threads, more than MAX_BUCKETS are not used
+    * @return phase timings
+    */
+   public static SampleSortStats sampleSort(double[] a, int threads) {
+      if (a == null || threads < 1)
+         throw new IllegalArgumentException("sampleSort: wrong parameters");
+      long stime = System.nanoTime();
+      int n = a.length;
+      // clamp first, threads * BUCKETS_PER_THREAD must not overflow
+      threads = Math.min(threads, MAX_BUCKETS);
+      int buckets = Math.min(MAX_BUCKETS, Integer.highestOneBit(threads * BUCKETS_PER_THREAD - 1) << 1);
+      if (n < buckets * OVERSAMPLING * 4) {
+         if (n > 1)
+            quickSort(a, 0, n);
+         return new SampleSortStats(1, 1, 0, 0, 0, 0, System.nanoTime() - stime);
+      }
+      int levels = Integer.numberOfTrailingZeros(buckets);
+
+      // sample and splitters in Eytzinger order: children of j are 2j, 2j+1
+      double[] sample = new double[buckets * OVERSAMPLING - 1];
+      Random generator = new Random(n);
+      for (int i = 0; i < sample.length; i++)
+         sample[i] = a[generator.nextInt(n)];
+      quickSort(sample, 0, sample.length);
+      double[] tree = new double[buckets];
+      fillSplitterTree(tree, 1, sample, 0, buckets);
+      // upper[b] is the splitter above bucket b, the last bucket has none
+      double[] upper = new double[buckets];
+      boolean equality = false;
+      for (int b = 0; b < buckets - 1; b++) {
+         upper[b] = sample[(b + 1) * OVERSAMPLING - 1];
+         if (b > 0 && upper[b] == upper[b - 1])
+            equality = true;
+      }
+      upper[buckets - 1] = Double.NaN;
+      // with equality buckets bucket b becomes class 2b (keys below upper[b])
+      // and class 2b + 1 (keys equal to upper[b])
+      final boolean withEquality = equality;
+      int classes = equality ? 2 * buckets : buckets;
+      long sampleTime = System.nanoTime();
+
+      ForkJoinPool pool = new ForkJoinPool(threads);
+      try {
+         int chunk = (n + threads - 1) / threads;
+         short[] oracle = new short[n];
+         int[][] counts = new int[threads][classes];
+         List<Callable<Void>> tasks = new ArrayList<>();
+         for (int t = 0; t < threads; t++) {
+            final int from = Math.min(n, t * chunk);
+            final int to = Math.min(n, from + chunk);
+            final int[] count = counts[t];
+            tasks.add(() -> {
+               for (int i = from; i < to; i++) {
+                  double x = a[i];
+                  int j = 1;
+                  for (int level = 0; level < levels; level++)
+                     j = 2 * j + (x > tree[j] ? 1 : 0);
+                  j -= buckets;
+                  if (withEquality)
+                     j = 2 * j + (x == upper[j] ? 1 : 0);
+                  oracle[i] = (short) j;
+                  count[j]++;
+               }
+               count((long) (withEquality ? levels + 1 : levels) * (to - from), 0);
+               return null;
+            });
+         }
+         invokeAllChecked(pool, tasks);
+         long classifyTime = System.nanoTime();
+
+         // class b of thread t starts after all smaller classes and
+         // after class b of all previous threads
+         int[] bucketStart = new int[classes + 1];
+         int sum = 0;
+         for (int b = 0; b < classes; b++) {
+            bucketStart[b] = sum;
+            for (int t = 0; t < threads; t++) {
+               int tmp = counts[t][b];
+               counts[t][b] = sum;
+               sum += tmp;
+            }
+         }
+         bucketStart[classes] = n;
+         double[] buffer = new double[n];
+         tasks.clear();
+         for (int t = 0; t < threads; t++) {
+            final int from = Math.min(n, t * chunk);
+            final int to = Math.min(n, from + chunk);
+            final int[] offset = counts[t];
+            tasks.add(() -> {
+               for (int i = from; i < to; i++)
+                  buffer[offset[oracle[i]]++] = a[i];
+               count(0, to - from);
+               return null;
+            });
+         }
+         invokeAllChecked(pool, tasks);
+         long scatterTime = System.nanoTime();
+
+         tasks.clear();
+         int equalityBuckets = 0;
+         for (int b = 0; b < classes; b++) {
+            if (withEquality && b % 2 == 1) {
+               if (bucketStart[b + 1] > bucketStart[b])
+                  equalityBuckets++;
+               // equal keys are already in order, copy them back in parts
+               for (int from = bucketStart[b]; from < bucketStart[b + 1]; from += chunk) {
+                  final int start = from;
+                  final int end = Math.min(bucketStart[b + 1], from + chunk);
+                  tasks.add(() -> {
+                     System.arraycopy(buffer, start, a, start, end - start);
+                     count(0, end - start);
+                     return null;
+                  });
+               }
+               continue;
+            }
+            final int from = bucketStart[b];
+            final int to = bucketStart[b + 1];
+            if (to > from) {
+               tasks.add(() -> {
+                  quickSort(buffer, from, to);
+                  System.arraycopy(buffer, from, a, from, to - from);
+                  count(0, to - from);
+                  return null;
+               });
+            }
+         }
+         invokeAllChecked(pool, tasks);
+         long ftime = System.nanoTime();
+         return new SampleSortStats(threads, classes, equalityBuckets, sampleTime - stime,
+               classifyTime - sampleTime, scatterTime - classifyTime, ftime - scatterTime);
+      } finally {
+         pool.shutdown();
+      }
+   }
+
+   /**
+    * Store sorted splitters as an implicit binary search tree.
+    * 
+    * @param tree
+    *           tree array, node j has children 2j and 2j+1
+    * @param node
+    *           node to be filled
+    * @param sample
+    *           sorted sample
+    * @param lo
+    *           first bucket of the subtree (included)
+    * @param hi
+    *           last bucket of the subtree (excluded)
+    */
+   private static void fillSplitterTree(double[] tree, int node, double[] sample, int lo, int hi) {
+      if (hi - lo < 2)
+         return;
+      int mid = (lo + hi) >>> 1;
+      tree[node] = sample[mid * OVERSAMPLING - 1];
+      fillSplitterTree(tree, 2 * node, sample, lo, mid);
+      fillSplitterTree(tree, 2 * node + 1, sample, mid, hi);
+   }
+
+   /**
+    * Run tasks on a pool and wait for all of them.
+    * 
+    * @param pool
+    *           thread pool
+    * @param tasks
+    *           tasks to be run
+    * @throws IllegalStateException
+    *            if a task fails or waiting is interrupted
+    */
+   private static void invokeAllChecked(ForkJoinPool pool, List<Callable<Void>> tasks) {
+      try {
+         for (Future<Void> f : pool.invokeAll(tasks))
+            f.get();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new IllegalStateException("sampleSort interrupted", e);
+      } catch (ExecutionException e) {
+         throw new IllegalStateException("sampleSort failed", e.getCause());
+      }
+   }
+
+   /**
+    * Stable sorted index of keys: the result lists positions of keys in
+    * ascending key order, the keys themselves are not moved.
+    * 
+    * @param keys
+    *           sort keys
+    * @return permutation p such that keys[p[0]] &lt;= keys[p[1]] &lt;= ...
+    */
+   public static int[] argSort(double[] keys) {
+      if (keys == null)
+         throw new IllegalArgumentException("argSort: wrong parameters");
+      int[] index = identity(keys.length);
+      argSort(keys, index, new int[keys.length], 0, keys.length);
+      return index;
+   }
+
+   /**
+    * Stable sorted index of keys computed on the common fork/join pool.
+    * 
+    * @param keys
+    *           sort keys
+    * @param parallelismThreshold
+    *           interval length below which no more tasks are forked
+    * @return permutation p such that keys[p[0]] &lt;= keys[p[1]] &lt;= ...
+    */
+   public static int[] parallelArgSort(double[] keys, int parallelismThreshold) {
+      if (keys == null || parallelismThreshold < 1)
+         throw new IllegalArgumentException("parallelArgSort: wrong parameters");
+      int[] index = identity(keys.length);
+      if (keys.length > 1)
+         ForkJoinPool.commonPool().invoke(
+               new ArgSortTask(keys, index, new int[keys.length], 0, keys.length, parallelismThreshold));
+      return index;
+   }
+
+   /**
+    * Rearrange parallel arrays in place so that element i of each array
+    * becomes the element at position perm[i], e.g. to apply the result
+    * of argSort to payload rows. perm is checked first, if it is not a
+    * permutation IllegalArgumentException is thrown and no array is
+    * changed. Cycles of the permutation are followed once for all arrays;
+    * visited positions are marked in perm and restored afterwards.
+    * 
+    * @param perm
+    *           permutation of 0..n-1
+    * @param arrays
+    *           arrays of length n to be changed
+    */
+   public static void applyPermutation(int[] perm, double[]... arrays) {
+      permute(perm, arrays, new Object[0][]);
+   }
+
+   /**
+    * Rearrange parallel object arrays in place, as applyPermutation for
+    * double arrays.
+    * 
+    * @param perm
+    *           permutation of 0..n-1
+    * @param arrays
+    *           arrays of length n to be changed
+    */
+   public static void applyPermutation(int[] perm, Object[]... arrays) {
+      permute(perm, new double[0][], arrays);
+   }
+
+   /**
+    * Apply a permutation to double and object arrays by cycle-following.
+    * 
+    * @param perm
+    *           permutation of 0..n-1
+    * @param d
+    *           double arrays to be changed
+    * @param o
+    *           object arrays to be changed
+    */
+   private static void permute(int[] perm, double[][] d, Object[][] o) {
+      if (perm == null)
+         throw new IllegalArgumentException("applyPermutation: wrong parameters");
+      int n = perm.length;
+      for (double[] a : d)
+         if (a.length != n)
+            throw new IllegalArgumentException("applyPermutation: array lengths differ");
+      for (Object[] a : o)
+         if (a.length != n)
+            throw new IllegalArgumentException("applyPermutation: array lengths differ");
+      // check everything before the first move, bad input leaves the arrays unchanged
+      boolean[] seen = new boolean[n];
+      for (int i = 0; i < n; i++) {
+         int p = perm[i];
+         if (p < 0 || p >= n || seen[p])
+            throw new IllegalArgumentException("applyPermutation: not a permutation");
+         seen[p] = true;
+      }
+      double[] dtmp = new double[d.length];
+      Object[] otmp = new Object[o.length];
+      for (int i = 0; i < n; i++) {
+         if (perm[i] < 0 || perm[i] == i)
+            continue; // visited or fixed point
+         for (int k = 0; k < d.length; k++)
+            dtmp[k] = d[k][i];
+         for (int k = 0; k < o.length; k++)
+            otmp[k] = o[k][i];
+         int j = i;
+         while (true) {
+            int next = perm[j];
+            perm[j] = ~next;
+            if (next == i) {
+               for (int k = 0; k < d.length; k++)
+                  d[k][j] = dtmp[k];
+               for (int k = 0; k < o.length; k++)
+                  o[k][j] = otmp[k];
+               break;
+            }
+            for (int k = 0; k < d.length; k++)
+               d[k][j] = d[k][next];
+            for (int k = 0; k < o.length; k++)
+               o[k][j] = o[k][next];
+            j = next;
+         }
+      }
+      for (int i = 0; i < n; i++)
+         if (perm[i] < 0)
+            perm[i] = ~perm[i];
+   }
+
+   /**
+    * Identity permutation.
+    * 
+    * @param n
+    *           length
+    * @return array 0, 1, ..., n-1
+    */
+   private static int[] identity(int n) {
+      int[] index = new int[n];
+      for (int i = 0; i < n; i++)
+         index[i] = i;
+      return index;
+   }
+
+   /**
+    * Stable merge sort of an index interval by keys.
+    * 
+    * @param keys
+    *           sort keys, not changed
+    * @param index
+    *           positions of keys to be sorted
+    * @param buffer
+    *           scratch space of the same length as index
+    * @param left
+    *           begin of an interval (included)
+    * @param right
+    *           end of an interval (excluded)
+    */
+   static void argSort(double[] keys, int[] index, int[] buffer, int left, int right) {
+      if ((right - left) <= INSERTION_SORT_CUTOFF) {
+         for (int i = left + 1; i < right; i++) {
+            int b = index[i];
+            int j;
+            for (j = i - 1; j >= left; j--) {
+               if (!(keys[index[j]] > keys[b]))
+                  break;
+               index[j + 1] = index[j];
+            }
+            index[j + 1] = b;
+            count(j < left ? i - 1 - j : i - j, i - j);
+         }
+         return;
+      }
+      enter();
+      int k = (left + right) >>> 1;
+      argSort(keys, index, buffer, left, k);
+      argSort(keys, index, buffer, k, right);
+      mergeIndices(keys, index, buffer, left, k, right);
+      leave();
+   }
+
+   /**
+    * Merge two sorted index intervals by keys, as merge does for values.
+    * 
+    * @param keys
+    *           sort keys, not changed
+    * @param index
+    *           positions of keys
+    * @param buffer
+    *           scratch space of the same length as index
+    * @param left
+    *           start1
+    * @param k
+    *           start2 = end1
+    * @param right
+    *           end2
+    */
+   static void mergeIndices(double[] keys, int[] index, int[] buffer, int left, int k, int right) {
+      if (!greater(keys[index[k - 1]], keys[index[k]]))
+         return;
+      int n1 = left;
+      int n2 = k;
+      int m = left;
+      while (n1 < k && n2 < right) {
+         if (greater(keys[index[n1]], keys[index[n2]])) {
+            buffer[m++] = index[n2++];
+         } else {
+            buffer[m++] = index[n1++];
+         }
+      }
+      while (n1 < k)
+         buffer[m++] = index[n1++];
+      while (n2 < right)
+         buffer[m++] = index[n2++];
+      System.arraycopy(buffer, left, index, left, right - left);
+      count(0, 2 * (right - left));
+   }
+
+   /**
+    * Fork/join task sorting one interval of an index array by keys.
+    */
+   static class ArgSortTask extends RecursiveAction {
+
+      private static final long serialVersionUID = 1L;
+
+      private final double[] keys;
+      private final int[] index;
+      private final int[] buffer;
+      private final int left;
+      private final int right;
+      private final int threshold;
+
+      ArgSortTask(double[] keys, int[] index, int[] buffer, int left, int right, int threshold) {
+         this.keys = keys;
+         this.index = index;
+         this.buffer = buffer;
+         this.left = left;
+         this.right = right;
+         this.threshold = threshold;
+      }
+
+      @Override
+      protected void compute() {
+         if ((right - left) <= threshold) {
+            argSort(keys, index, buffer, left, right);
+            return;
+         }
+         int k = (left + right) >>> 1;
+         invokeAll(new ArgSortTask(keys, index, buffer, left, k, threshold),
+               new ArgSortTask(keys, index, buffer, k, right, threshold));
+         mergeIndices(keys, index, buffer, left, k, right);
+      }
+   }
+
+   /**
+    * Sort a part of the array using quicksort method.
+    * 
+    * @param array
+    *           array to be changed
+    * @param l
+    *           starting index (included)
+    * @param r
+    *           ending index (excluded)
+    */
+   public static void quickSort(double[] array, int l, int r) {
+      if (array == null || array.length < 1 || l < 0 || r <= l)
+         throw new IllegalArgumentException("quickSort: wrong parameters");
+      if ((r - l) < 2)
+         return;
+      enter();
+      int i = l;
+      int j = r - 1;
+      double x = array[(i + j) / 2];
+      do {
+         while (smaller(array[i], x))
+            i++;
+         while (smaller(x, array[j]))
+            j--;
+         if (i <= j) {
+            double tmp = array[i];
+            array[i] = array[j];
+            array[j] = tmp;
+            count(0, 2);
+            i++;
+            j--;
+         }
+      } while (i < j);
+      if (l < j)
+         quickSort(array, l, j + 1); // recursion for left part
+      if (i < r - 1)
+         quickSort(array, i, r); // recursion for right part
+      leave();
+   }
+
+   /**
+    * Parallel quicksort on the common fork/join pool. Sorts in place
+    * without scratch memory: after each partition the larger part is
+    * forked, so idle threads steal big pieces of work, and the task goes
+    * on with the smaller part. Intervals shorter than the threshold are
+    * sorted by introsort. After 2 log n partitioning levels an interval
+    * is sorted by introsort as well, which bounds both the running time
+    * and the nesting of joined tasks on the stack.
+    * 
+    * @param a
+    *           array to be sorted
+    * @param parallelismThreshold
+    *           interval length below which no more tasks are forked
+    */
+   public static void parallelQuickSort(double[] a, int parallelismThreshold) {
+      parallelQuickSort(a, parallelismThreshold, ForkJoinPool.commonPool());
+   }
+
+   /**
+    * Parallel quicksort on a given fork/join pool.
+    * 
+    * @param a
+    *           array to be sorted
+    * @param parallelismThreshold
+    *           interval length below which no more tasks are forked
+    * @param pool
+    *           pool that runs the tasks
+    */
+   public static void parallelQuickSort(double[] a, int parallelismThreshold, ForkJoinPool pool) {
+      if (a == null || parallelismThreshold < 1 || pool == null)
+         throw new IllegalArgumentException("parallelQuickSort: wrong parameters");
+      if (a.length < 2)
+         return;
+      int depthLimit = 2 * (31 - Integer.numberOfLeadingZeros(a.length));
+      pool.invoke(new QuickSortTask(a, 0, a.length, parallelismThreshold, depthLimit, null));
+   }
+
+   /**
+    * Fork/join task of parallel quicksort. Tasks forked by one task are
+    * linked through next, so that they can be joined in reverse order.
+    */
+   static class QuickSortTask extends RecursiveAction {
+
+      private static final long serialVersionUID = 1L;
+
+      private final double[] array;
+      private final int left;
+      private final int right;
+      private final int threshold;
+      private final int depth;
+      private final QuickSortTask next;
+
+      QuickSortTask(double[] array, int left, int right, int threshold, int depth, QuickSortTask next) {
+         this.array = array;
+         this.left = left;
+         this.right = right;
+         this.threshold = threshold;
+         this.depth = depth;
+         this.next = next;
+      }
+
+      @Override
+      protected void compute() {
+         enter();
+         int l = left;
+         int r = right;
+         int d = depth;
+         QuickSortTask forked = null;
+         while ((r - l) > threshold && d > 0) {
+            d--;
+            int i = l;
+            int j = r - 1;
+            int m = (i + j) >>> 1;
+            double x = medianOfThree(array[i], array[m], array[j]);
+            do {
+               while (smaller(array[i], x))
+                  i++;
+               while (smaller(x, array[j]))
+                  j--;
+               if (i <= j) {
+                  double tmp = array[i];
+                  array[i] = array[j];
+                  array[j] = tmp;
+                  count(0, 2);
+                  i++;
+                  j--;
+               }
+            } while (i <= j);
+            // left part is [l, j], right part is [i, r), they must not
+            // overlap because both are sorted at the same time
+            if ((j + 1 - l) > (r - i)) {
+               forked = new QuickSortTask(array, l, j + 1, threshold, d, forked);
+               l = i;
+            } else {
+               forked = new QuickSortTask(array, i, r, threshold, d, forked);
+               r = j + 1;
+            }
+            forked.fork();
+         }
+         if ((r - l) > 1)
+            introSort(array, l, r);
+         for (; forked != null; forked = forked.next)
+            forked.join();
+         leave();
+      }
+
+      /**
+       * Median of three values, counted if instrumented.
+       * 
+       * @param x
+       *           first value
+       * @param y
+       *           second value
+       * @param z
+       *           third value
+       * @return median
+       */
+      private static double medianOfThree(double x, double y, double z) {
+         if (smaller(y, x)) {
+            double tmp = x;
+            x = y;
+            y = tmp;
+         }
+         if (smaller(z, y))
+            y = smaller(z, x) ? x : z;
+         return y;
+      }
+   }
+
+   /**
+    * Find the k-th smallest element. The array is rearranged so that
+    * a[k] holds it, no element before k is bigger and no element after k
+    * is smaller.
+    * 
+    * @param a
+    *           array to be changed
+    * @param k
+    *           index of the wanted element in sorted order (from 0)
+    * @return k-th smallest element
+    */
+   public static double select(double[] a, int k) {
+      if (a == null || k < 0 || k >= a.length)
+         throw new IllegalArgumentException("select: wrong parameters");
+      select(a, 0, a.length, k);
+      return a[k];
+   }
+
+   /**
+    * Sort the k smallest elements into the beginning of the array; the
+    * order of the rest is undefined.
+    * 
+    * @param a
+    *           array to be changed
+    * @param k
+    *           number of elements to be sorted
+    */
+   public static void partialSort(double[] a, int k) {
+      if (a == null || k < 0 || k > a.length)
+         throw new IllegalArgumentException("partialSort: wrong parameters");
+      if (k == 0)
+         return;
+      if (k < a.length)
+         select(a, 0, a.length, k - 1);
+      introSort(a, 0, k);
+   }
+
+   /**
+    * Percentile with linear interpolation between closest ranks, found in
+    * linear time. The array is rearranged.
+    * 
+    * @param a
+    *           array of values
+    * @param p
+    *           percentile from 0 to 100
+    * @return p-th percentile
+    */
+   public static double percentile(double[] a, double p) {
+      if (a == null || a.length < 1 || !(p >= 0. && p <= 100.))
+         throw new IllegalArgumentException("percentile: wrong parameters");
+      double rank = p / 100. * (a.length - 1);
+      int lo = (int) rank;
+      select(a, 0, a.length, lo);
+      double x = a[lo];
+      if (lo == a.length - 1 || rank == lo)
+         return x;
+      // the next element in sorted order is the minimum of the upper part
+      double y = a[lo + 1];
+      for (int i = lo + 2; i < a.length; i++) {
+         if (smaller(a[i], y))
+            y = a[i];
+      }
+      return x + (y - x) * (rank - lo);
+   }
+
+   /**
+    * Quickselect in an interval using the partitioning of quickSort. When
+    * partitioning takes too many rounds, the pivots are taken by median
+    * of medians, which guarantees linear time.
+    * 
+    * @param a
+    *           array to be changed
+    * @param l
+    *           starting index (included)
+    * @param r
+    *           ending index (excluded)
+    * @param k
+    *           index of the wanted element, l &lt;= k &lt; r
+    */
+   static void select(double[] a, int l, int r, int k) {
+      enter();
+      int budget = 2 * (31 - Integer.numberOfLeadingZeros(r - l));
+      while ((r - l) > INSERTION_SORT_CUTOFF) {
+         double x = budget-- > 0 ? a[(l + r - 1) >>> 1] : medianOfMedians(a, l, r);
+         int i = l;
+         int j = r - 1;
+         do {
+            while (smaller(a[i], x))
+               i++;
+            while (smaller(x, a[j]))
+               j--;
+            if (i <= j) {
+               double tmp = a[i];
+               a[i] = a[j];
+               a[j] = tmp;
+               count(0, 2);
+               i++;
+               j--;
+            }
+         } while (i <= j);
+         if (k <= j) {
+            r = j + 1;
+         } else if (k >= i) {
+            l = i;
+         } else {
+            leave();
+            return; // a[k] equals the pivot
+         }
+      }
+      insertionSort(a, l, r);
+      leave();
+   }
+
+   /**
+    * Median of medians of groups of five. The medians of groups are moved
+    * to the beginning of the interval.
+    * 
+    * @param a
+    *           array to be changed
+    * @param l
+    *           starting index (included)
+    * @param r
+    *           ending index (excluded)
+    * @return approximate median of the interval
+    */
+   private static double medianOfMedians(double[] a, int l, int r) {
+      int m = l;
+      for (int g = l; g < r; g += 5) {
+         int e = Math.min(g + 5, r);
+         insertionSort(a, g, e);
+         int med = (g + e - 1) >>> 1;
+         double tmp = a[med];
+         a[med] = a[m];
+         a[m++] = tmp;
+         count(0, 2);
+      }
+      int mid = (l + m - 1) >>> 1;
+      select(a, l, m, mid);
+      return a[mid];
+   }
+
+   /**
+    * Sort a part of the array using dual-pivot introsort: median-of-five
+    * pivots, three-way handling of keys equal to the pivots, heapsort
+    * when the recursion gets too deep and insertion sort for short parts.
+    * 
+    * @param array
+    *           array to be changed
+    * @param l
+    *           starting index (included)
+    * @param r
+    *           ending index (excluded)
+    */
+   public static void introSort(double[] array, int l, int r) {
+      if (array == null || array.length < 1 || l < 0 || r <= l || r > array.length)
+         throw new IllegalArgumentException("introSort: wrong parameters");
+      int depthLimit = 2 * (31 - Integer.numberOfLeadingZeros(r - l));
+      introSort(array, l, r, depthLimit);
+   }
+
+   /**
+    * Introsort of an interval with a given remaining recursion depth.
+    * 
+    * @param a
+    *           array to be changed
+    * @param l
+    *           starting index (included)
+    * @param r
+    *           ending index (excluded)
+    * @param depth
+    *           number of partitioning levels left before heapsort
+    */
+   private static void introSort(double[] a, int l, int r, int depth) {
+      enter();
+      while ((r - l) > INSERTION_SORT_CUTOFF) {
+         if (depth-- == 0) {
+            heapSort(a, l, r);
+            leave();
+            return;
+         }
+         int hi = r - 1;
+         int seventh = ((r - l) >>> 3) + ((r - l) >>> 6) + 1;
+         int e3 = (l + hi) >>> 1;
+         int e2 = e3 - seventh;
+         int e1 = e2 - seventh;
+         int e4 = e3 + seventh;
+         int e5 = e4 + seventh;
+         sortFive(a, e1, e2, e3, e4, e5);
+
+         if (smaller(a[e2], a[e4])) {
+            double p1 = a[e2];
+            double p2 = a[e4];
+            a[e2] = a[l];
+            a[e4] = a[hi];
+            int less = l + 1;
+            int great = hi - 1;
+            outer:
+            for (int k = less; k <= great; k++) {
+               double ak = a[k];
+               if (smaller(ak, p1)) {
+                  a[k] = a[less];
+                  a[less++] = ak;
+                  count(0, 2);
+               } else if (greater(ak, p2)) {
+                  while (greater(a[great], p2)) {
+                     if (great-- == k)
+                        break outer;
+                  }
+                  if (smaller(a[great], p1)) {
+                     a[k] = a[less];
+                     a[less++] = a[great];
+                     count(0, 3);
+                  } else {
+                     a[k] = a[great];
+                     count(0, 2);
+                  }
+                  a[great--] = ak;
+               }
+            }
+            a[l] = a[less - 1];
+            a[less - 1] = p1;
+            a[hi] = a[great + 1];
+            a[great + 1] = p2;
+            count(0, 6);
+            introSort(a, l, less - 1, depth);
+            introSort(a, great + 2, r, depth);
+
+            // a large middle part usually means many keys equal to the pivots
+            if (less < e1 && e5 < great) {
+               while (same(a[less], p1))
+                  less++;
+               while (same(a[great], p2))
+                  great--;
+               outer:
+               for (int k = less; k <= great; k++) {
+                  double ak = a[k];
+                  if (same(ak, p1)) {
+                     a[k] = a[less];
+                     a[less++] = ak;
+                     count(0, 2);
+                  } else if (same(ak, p2)) {
+                     while (same(a[great], p2)) {
+                        if (great-- == k)
+                           break outer;
+                     }
+                     if (same(a[great], p1)) {
+                        a[k] = a[less];
+                        // a[great] equals p1, but it may be the zero of the other sign
+                        a[less++] = a[great];
+                        count(0, 3);
+                     } else {
+                        a[k] = a[great];
+                        count(0, 2);
+                     }
+                     a[great--] = ak;
+                  }
+               }
+            }
+            l = less;
+            r = great + 1;
+         } else {
+            // pivots are equal: three-way partition around a single pivot
+            double p = a[e3];
+            int lt = l;
+            int gt = hi;
+            int i = l;
+            while (i <= gt) {
+               double ai = a[i];
+               if (smaller(ai, p)) {
+                  a[i++] = a[lt];
+                  a[lt++] = ai;
+                  count(0, 2);
+               } else if (greater(ai, p)) {
+                  a[i] = a[gt];
+                  a[gt--] = ai;
+                  count(0, 2);
+               } else {
+                  i++;
+               }
+            }
+            introSort(a, l, lt, depth);
+            l = gt + 1;
+         }
+      }
+      insertionSort(a, l, r);
+      leave();
+   }
+
+   /**
+    * Sort five elements of the array in place with a sorting network.
+    * 
+    * @param a
+    *           array to be changed
+    * @param e1
+    *           index of the smallest element after sorting
+    * @param e2
+    *           second index
+    * @param e3
+    *           third index
+    * @param e4
+    *           fourth index
+    * @param e5
+    *           index of the largest element after sorting
+    */
+   private static void sortFive(double[] a, int e1, int e2, int e3, int e4, int e5) {
+      compareSwap(a, e1, e2);
+      compareSwap(a, e4, e5);
+      compareSwap(a, e3, e5);
+      compareSwap(a, e3, e4);
+      compareSwap(a, e1, e4);
+      compareSwap(a, e1, e3);
+      compareSwap(a, e2, e5);
+      compareSwap(a, e2, e4);
+      compareSwap(a, e2, e3);
+   }
+
+   /**
+    * Swap two elements if they are out of order.
+    * 
+    * @param a
+    *           array to be changed
+    * @param i
+    *           lower index
+    * @param j
+    *           higher index
+    */
+   private static void compareSwap(double[] a, int i, int j) {
+      if (greater(a[i], a[j])) {
+         double tmp = a[i];
+         a[i] = a[j];
+         a[j] = tmp;
+         count(0, 2);
+      }
+   }
+
+   /**
+    * Sort a part of the array using heapsort method.
+    * 
+    * @param a
+    *           array to be changed
+    * @param l
+    *           starting index (included)
+    * @param r
+    *           ending index (excluded)
+    */
+   static void heapSort(double[] a, int l, int r) {
+      int n = r - l;
+      for (int i = n / 2 - 1; i >= 0; i--)
+         siftDown(a, l, i, n);
+      for (int end = n - 1; end > 0; end--) {
+         double tmp = a[l];
+         a[l] = a[l + end];
+         a[l + end] = tmp;
+         count(0, 2);
+         siftDown(a, l, 0, end);
+      }
+   }
+
+   /**
+    * Move an element down the max-heap stored at a given offset.
+    * 
+    * @param a
+    *           array containing the heap
+    * @param offset
+    *           index of the heap root in the array
+    * @param i
+    *           heap position of the element to be moved
+    * @param n
+    *           heap size
+    */
+   private static void siftDown(double[] a, int offset, int i, int n) {
+      double x = a[offset + i];
+      int child;
+      while ((child = 2 * i + 1) < n) {
+         if (child + 1 < n && smaller(a[offset + child], a[offset + child + 1]))
+            child++;
+         if (!smaller(x, a[offset + child]))
+            break;
+         a[offset + i] = a[offset + child];
+         count(0, 1);
+         i = child;
+      }
+      a[offset + i] = x;
+      count(0, 1);
+   }
+
+   /**
+    * Move NaN values to the end of an array, where Arrays.sort puts them.
+    * 
+    * @param a
+    *           array to be changed
+    * @return number of other values, which are in front
+    */
+   static int moveNaNsToEnd(double[] a) {
+      int n = a.length;
+      for (int i = n - 1; i >= 0; i--) {
+         if (Double.isNaN(a[i])) {
+            double tmp = a[i];
+            a[i] = a[--n];
+            a[n] = tmp;
+            count(0, 2);
+         }
+      }
+      return n;
+   }
+
+   /**
+    * Put -0.0 before 0.0 in the sorted beginning of an array. The
+    * comparison sorts treat both zeros as equal and leave them mixed, the
+    * zero block is found by binary search and rewritten.
+    * 
+    * @param a
+    *           array
+    * @param n
+    *           length of the sorted beginning
+    */
+   static void orderSignedZeros(double[] a, int n) {
+      int l = 0;
+      int r = n;
+      while (l < r) {
+         int m = (l + r) >>> 1;
+         if (smaller(a[m], 0.))
+            l = m + 1;
+         else
+            r = m;
+      }
+      int negative = 0;
+      int end = l;
+      while (end < n && same(a[end], 0.)) {
+         if (Double.doubleToRawLongBits(a[end]) != 0L)
+            negative++;
+         end++;
+      }
+      for (int i = l; i < end; i++)
+         a[i] = i < l + negative ? -0. : 0.;
+      count(0, end - l);
+   }
+
+   /**
+    * LSD radix sort. Doubles are ordered by their IEEE-754 bits with the
+    * sign bit flipped (and all other bits flipped for negative numbers),
+    * so that -0.0 comes before 0.0 and NaN values are moved to the end,
+    * as in Arrays.sort.
+    * 
+    * @param a
+    *           array to be sorted
+    */
+   public static void radixSort(double[] a) {
+      // NaN values go to the end and do not take part in sorting
+      int n = moveNaNsToEnd(a);
+      if (n < 2)
+         return;
+      int passes = (Long.SIZE + RADIX_BITS - 1) / RADIX_BITS;
+      int mask = (1 << RADIX_BITS) - 1;
+      int[][] count = new int[passes][mask + 1];
+      for (int i = 0; i < n; i++) {
+         long key = sortableBits(a[i]);
+         for (int p = 0; p < passes; p++)
+            count[p][(int) (key >>> (p * RADIX_BITS)) & mask]++;
+      }
+      double[] from = a;
+      double[] to = new double[n];
+      for (int p = 0; p < passes; p++) {
+         int[] c = count[p];
+         int shift = p * RADIX_BITS;
+         if (c[(int) (sortableBits(from[0]) >>> shift) & mask] == n)
+            continue; // all keys have the same digit
+         int sum = 0;
+         for (int d = 0; d <= mask; d++) {
+            int tmp = c[d];
+            c[d] = sum;
+            sum += tmp;
+         }
+         for (int i = 0; i < n; i++) {
+            double x = from[i];
+            to[c[(int) (sortableBits(x) >>> shift) & mask]++] = x;
+         }
+         count(0, n);
+         double[] tmp = from;
+         from = to;
+         to = tmp;
+      }
+      if (from != a) {
+         System.arraycopy(from, 0, a, 0, n);
+         count(0, n);
+      }
+   }
+
+   /**
+    * Map a double to a long so that signed double order becomes unsigned
+    * long order.
+    * 
+    * @param x
+    *           value, not NaN
+    * @return sortable bits of x
+    */
+   static long sortableBits(double x) {
+      long bits = Double.doubleToRawLongBits(x);
+      return bits ^ ((bits >> 63) | Long.MIN_VALUE);
+   }
+
+   /** Order violations found by verifyOrder. */
+   public static class OrderReport {
+
+      /** number of positions i where a[i] comes after a[i+1] */
+      public final long violations;
+      /** the first (at most MAX_REPORTED_VIOLATIONS) such positions */
+      public final int[] positions;
+
+      OrderReport(long violations, int[] positions) {
+         this.violations = violations;
+         this.positions = positions;
+      }
+
+      /** @return true if there are no violations */
+      public boolean isOrdered() {
+         return violations == 0;
+      }
+
+      @Override
+      public String toString() {
+         return violations + " violations" + (violations == 0 ? "" : " at " + Arrays.toString(positions)
+               + (violations > positions.length ? " ..." : ""));
+      }
+   }
+
+   /**
+    * Verify the order of an array in parallel with PARALLELISM_THRESHOLD.
+    * 
+    * @param a
+    *           sorted (?) array
+    * @return violations found
+    */
+   public static OrderReport verifyOrder(double[] a) {
+      return verifyOrder(a, PARALLELISM_THRESHOLD);
+   }
+
+   /**
+    * Verify the order of an array in parallel on the common fork/join
+    * pool. Elements are compared in the total order of Double.compare, as
+    * produced by Arrays.sort: -0.0 comes before 0.0 and NaN values are
+    * last. The array is split into chunks, each chunk checks the pairs
+    * starting inside it, including the pair crossing the boundary to the
+    * next chunk, so every adjacent pair is checked exactly once.
+    * 
+    * @param a
+    *           sorted (?) array
+    * @param parallelismThreshold
+    *           chunk length below which no more tasks are forked
+    * @return violations found
+    */
+   public static OrderReport verifyOrder(double[] a, int parallelismThreshold) {
+      if (a == null || parallelismThreshold < 1)
+         throw new IllegalArgumentException("verifyOrder: wrong parameters");
+      if (a.length < 2)
+         return new OrderReport(0, new int[0]);
+      return ForkJoinPool.commonPool().invoke(new VerifyTask(a, 0, a.length - 1, parallelismThreshold));
+   }
+
+   /** Fork/join task verifying the pairs starting in one interval. */
+   static class VerifyTask extends RecursiveTask<OrderReport> {
+
+      private static final long serialVersionUID = 1L;
+
+      private final double[] array;
+      private final int left;
+      private final int right;
+      private final int threshold;
+
+      VerifyTask(double[] array, int left, int right, int threshold) {
+         this.array = array;
+         this.left = left;
+         this.right = right;
+         this.threshold = threshold;
+      }
+
+      @Override
+      protected OrderReport compute() {
+         if ((right - left) <= threshold) {
+            long violations = 0;
+            int[] positions = new int[MAX_REPORTED_VIOLATIONS];
+            for (int i = left; i < right; i++) {
+               double x = array[i];
+               double y = array[i + 1];
+               // x < y is the common case, the total order is needed otherwise
+               if (!(x < y) && Double.compare(x, y) > 0) {
+                  if (violations < MAX_REPORTED_VIOLATIONS)
+                     positions[(int) violations] = i;
+                  violations++;
+               }
+            }
+            return new OrderReport(violations,
+                  Arrays.copyOf(positions, (int) Math.min(violations, MAX_REPORTED_VIOLATIONS)));
+         }
+         int k = (left + right) >>> 1;
+         VerifyTask upper = new VerifyTask(array, k, right, threshold);
+         upper.fork();
+         OrderReport lo = new VerifyTask(array, left, k, threshold).compute();
+         OrderReport hi = upper.join();
+         int[] positions = Arrays.copyOf(lo.positions,
+               Math.min(MAX_REPORTED_VIOLATIONS, lo.positions.length + hi.positions.length));
+         for (int i = lo.positions.length; i < positions.length; i++)
+            positions[i] = hi.positions[i - lo.positions.length];
+         return new OrderReport(lo.violations + hi.violations, positions);
+      }
+   }
+
+   /**
+    * Check whether an array is ordered.
+    * 
+    * @param a
+    *           sorted (?) array
+    * @throws IllegalArgumentException
+    *            if an array is not ordered
+    */
+   static void checkOrder(double[] a) {
+      OrderReport report = verifyOrder(a);
+      if (!report.isOrdered())
+         throw new IllegalArgumentException("array not ordered: " + report);
    }
 
 }
@@ -0,0 +1,703 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Benchmark of the sorting methods in DoubleSorting. Unlike the
+ * competition in DoubleSorting.main, every measurement is preceded by
+ * warmup iterations, repeated in separate JVM forks and sampled many
+ * times, so that JIT compilation and GC do not dominate the numbers.
+ * Inputs are generated from fixed seeds, so runs on different machines
+ * sort the same arrays. Average, median, p95 and p99 time, throughput and
+ * allocation rate are reported and can be written as CSV or JSON.
+ * Sizes, distributions, algorithms, seeds and iteration counts are given
+ * on the command line, see Options.
+ *
+ * @since 1.8
+ * Atakan Delikan
+ */
+public class DoubleSortingBenchmark {
+
+   /** default array lengths to be measured */
+   static final int[] SIZES = {1000, 16000, 256000};
+
+   /** default seed of the input generator */
+   static final long SEED = 42L;
+
+   /** maximal array length for quadratic methods */
+   static final int QUADRATIC_LIMIT = 16000;
+
+   /** default number of JVM forks, 0 means measuring in this JVM */
+   static final int FORKS = 2;
+
+   /** default number of warmup iterations per fork */
+   static final int WARMUP_ITERATIONS = 3;
+
+   /** default number of measured iterations per fork */
+   static final int MEASUREMENT_ITERATIONS = 5;
+
+   /** default minimal duration of one iteration */
+   static final long ITERATION_TIME_NS = 100000000L;
+
+   /** command line flag marking a forked child JVM */
+   static final String CHILD_FLAG = "-child";
+
+   /** command line flag for measuring the insertion sort crossover */
+   static final String CROSSOVER_FLAG = "-crossover";
+
+   /** interval lengths compared in the insertion sort crossover */
+   static final int[] CROSSOVER_SIZES = {4, 8, 12, 16, 24, 32, 48, 64, 96, 128, 192, 256};
+
+   /** sink for sorted values, prevents dead code elimination */
+   static volatile double sink;
+
+   /** whether the JVM counts allocated bytes per thread */
+   static final boolean ALLOCATION_COUNTING = DoubleSorting.allocatedBytes() >= 0;
+
+   /** bytes allocated by reading the allocation counter itself */
+   static final long ALLOCATION_OVERHEAD = allocationOverhead();
+
+   /** Input distributions. */
+   enum Distribution {
+      RANDOM, SORTED, REVERSED, SAWTOOTH, FEW_UNIQUE, NAN;
+
+      /**
+       * Generate an input array.
+       *
+       * @param n
+       *           array length
+       * @param generator
+       *           source of random numbers
+       * @return new array of given distribution
+       */
+      double[] generate(int n, Random generator) {
+         double[] a = new double[n];
+         int tooth = Math.max(1, (int) Math.sqrt(n));
+         for (int i = 0; i < n; i++) {
+            switch (this) {
+            case SORTED:
+               a[i] = i;
+               break;
+            case REVERSED:
+               a[i] = n - i;
+               break;
+            case SAWTOOTH:
+               a[i] = i % tooth;
+               break;
+            case FEW_UNIQUE:
+               a[i] = generator.nextInt(8);
+               break;
+            case NAN:
+               a[i] = generator.nextInt(16) == 0 ? Double.NaN : generator.nextDouble() * 1000.;
+               break;
+            default:
+               a[i] = generator.nextDouble() * 1000.;
+            }
+         }
+         return a;
+      }
+   }
+
+   /** Measured sorting methods. */
+   enum Algorithm {
+      INSERTION("Insertion sort", true) {
+         void sort(double[] a) {
+            DoubleSorting.insertionSort(a);
+         }
+      },
+      BINARY_INSERTION("Binary insertion sort", true) {
+         void sort(double[] a) {
+            DoubleSorting.binaryInsertionSort(a);
+         }
+      },
+      MERGE("Merge sort", false) {
+         void sort(double[] a) {
+            DoubleSorting.mergeSort(a, 0, a.length);
+         }
+      },
+      TILED_MERGE("Tiled merge sort", false) {
+         void sort(double[] a) {
+            DoubleSorting.tiledMergeSort(a);
+         }
+      },
+      NATURAL_MERGE("Natural merge sort", false) {
+         void sort(double[] a) {
+            DoubleSorting.naturalMergeSort(a);
+         }
+      },
+      QUICK("Quicksort", false) {
+         void sort(double[] a) {
+            DoubleSorting.quickSort(a, 0, a.length);
+         }
+      },
+      INTRO("Introsort", false) {
+         void sort(double[] a) {
+            if (a.length > 0)
+               DoubleSorting.introSort(a, 0, a.length);
+         }
+      },
+      PARALLEL_QUICK("Parallel quicksort", false) {
+         void sort(double[] a) {
+            DoubleSorting.parallelQuickSort(a, DoubleSorting.PARALLELISM_THRESHOLD);
+         }
+      },
+      PARALLEL_MERGE("Parallel merge sort", false) {
+         void sort(double[] a) {
+            DoubleSorting.parallelMergeSort(a, DoubleSorting.PARALLELISM_THRESHOLD);
+         }
+      },
+      SAMPLE("Sample sort", false) {
+         void sort(double[] a) {
+            DoubleSorting.sampleSort(a, Runtime.getRuntime().availableProcessors());
+         }
+      },
+      RADIX("Radix sort", false) {
+         void sort(double[] a) {
+            DoubleSorting.radixSort(a);
+         }
+      },
+      ADAPTIVE("Adaptive sort", false) {
+         void sort(double[] a) {
+            DoubleSorting.sort(a);
+         }
+      },
+      JAVA_API("Java API  Arrays.sort", false) {
+         void sort(double[] a) {
+            Arrays.sort(a);
+         }
+      };
+
+      final String title;
+      final boolean quadratic;
+
+      Algorithm(String title, boolean quadratic) {
+         this.title = title;
+         this.quadratic = quadratic;
+      }
+
+      /**
+       * Sort the whole array.
+       *
+       * @param a
+       *           array to be sorted
+       */
+      abstract void sort(double[] a);
+   }
+
+   /** Sorting methods for short intervals. */
+   enum LeafSort {
+      INSERTION {
+         void sort(double[] a, int left, int right) {
+            DoubleSorting.insertionSort(a, left, right);
+         }
+      },
+      BINARY_INSERTION {
+         void sort(double[] a, int left, int right) {
+            DoubleSorting.binaryInsertionSort(a, left, right);
+         }
+      };
+
+      /**
+       * Sort an interval.
+       *
+       * @param a
+       *           array to be sorted
+       * @param left
+       *           begin of an interval (included)
+       * @param right
+       *           end of an interval (excluded)
+       */
+      abstract void sort(double[] a, int left, int right);
+   }
+
+   /** Result of one measurement. */
+   static class Result {
+
+      final Algorithm algorithm;
+      final Distribution distribution;
+      final int size;
+      long operations = 0;
+      long nanos = 0;
+      long bytes = 0;
+
+      /** average time of one sort in each measured iteration, in ms */
+      double[] samples = new double[0];
+
+      Result(Algorithm algorithm, Distribution distribution, int size) {
+         this.algorithm = algorithm;
+         this.distribution = distribution;
+         this.size = size;
+      }
+
+      /** @return average time of one sort in milliseconds */
+      double millisPerOp() {
+         return nanos / 1e6 / operations;
+      }
+
+      /** @return number of sorts per second */
+      double opsPerSecond() {
+         return operations * 1e9 / nanos;
+      }
+
+      /** @return allocated megabytes per second of sorting */
+      double allocMBPerSecond() {
+         return !ALLOCATION_COUNTING ? Double.NaN : bytes * 1e9 / nanos / (1024. * 1024.);
+      }
+
+      /** @return allocated bytes per sort */
+      double allocBytesPerOp() {
+         return !ALLOCATION_COUNTING ? Double.NaN : (double) bytes / operations;
+      }
+
+      /**
+       * Percentile of the iteration samples.
+       *
+       * @param p
+       *           percentile from 0 to 100
+       * @return p-th percentile of the time of one sort in milliseconds
+       */
+      double percentileMillis(double p) {
+         if (samples.length == 0)
+            return Double.NaN;
+         return DoubleSorting.percentile(Arrays.copyOf(samples, samples.length), p);
+      }
+
+      /**
+       * Record one measured iteration.
+       *
+       * @param millisPerOp
+       *           average time of one sort in the iteration
+       */
+      void addSample(double millisPerOp) {
+         samples = Arrays.copyOf(samples, samples.length + 1);
+         samples[samples.length - 1] = millisPerOp;
+      }
+
+      /**
+       * Add measured values of another fork.
+       *
+       * @param other
+       *           result of the same benchmark
+       */
+      void add(Result other) {
+         operations += other.operations;
+         nanos += other.nanos;
+         bytes += other.bytes;
+         for (double x : other.samples)
+            addSample(x);
+      }
+
+      /** @return one line for passing the result from a fork */
+      String serialize() {
+         StringBuilder res = new StringBuilder();
+         res.append(algorithm + ";" + distribution + ";" + size + ";" + operations + ";" + nanos + ";" + bytes + ";");
+         for (int i = 0; i < samples.length; i++)
+            res.append(i > 0 ? "," : "").append(samples[i]);
+         return res.toString();
+      }
+
+      /**
+       * Parse a line created by serialize.
+       *
+       * @param line
+       *           serialized result
+       * @return parsed result
+       */
+      static Result parse(String line) {
+         String[] f = line.split(";", -1);
+         if (f.length != 7)
+            throw new IllegalArgumentException("wrong result line: " + line);
+         Result res = new Result(Algorithm.valueOf(f[0]), Distribution.valueOf(f[1]), Integer.parseInt(f[2]));
+         res.operations = Long.parseLong(f[3]);
+         res.nanos = Long.parseLong(f[4]);
+         res.bytes = Long.parseLong(f[5]);
+         if (!f[6].isEmpty())
+            for (String x : f[6].split(","))
+               res.addSample(Double.parseDouble(x));
+         return res;
+      }
+   }
+
+   /**
+    * Benchmark settings given on the command line as name=value pairs,
+    * lists are separated by commas:
+    * -sizes=1000,16000 -distributions=RANDOM,SORTED -algorithms=QUICK
+    * -seeds=1,2,3 -warmups=3 -iterations=5 -time=100 (ms per iteration,
+    * 0 measures every sort separately) -forks=2 -csv=file -json=file.
+    * Options that are not given keep the defaults of this class.
+    */
+   static class Options {
+
+      int[] sizes = SIZES;
+      Distribution[] distributions = Distribution.values();
+      Algorithm[] algorithms = Algorithm.values();
+      long[] seeds = {SEED};
+      int warmups = WARMUP_ITERATIONS;
+      int iterations = MEASUREMENT_ITERATIONS;
+      long iterationNanos = ITERATION_TIME_NS;
+      int forks = FORKS;
+      String csv = null;
+      String json = null;
+
+      /** command line the options were parsed from */
+      String[] args = new String[0];
+
+      /**
+       * Parse command line options.
+       *
+       * @param args
+       *           options as name=value pairs
+       * @return parsed options
+       */
+      static Options parse(String[] args) {
+         Options res = new Options();
+         res.args = args.clone();
+         for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("-") || eq < 0)
+               throw new IllegalArgumentException("wrong option: " + arg);
+            String name = arg.substring(1, eq);
+            String[] values = arg.substring(eq + 1).split(",");
+            switch (name) {
+            case "sizes":
+               res.sizes = new int[values.length];
+               for (int i = 0; i < values.length; i++)
+                  res.sizes[i] = Integer.parseInt(values[i]);
+               break;
+            case "distributions":
+               res.distributions = new Distribution[values.length];
+               for (int i = 0; i < values.length; i++)
+                  res.distributions[i] = Distribution.valueOf(values[i].toUpperCase());
+               break;
+            case "algorithms":
+               res.algorithms = new Algorithm[values.length];
+               for (int i = 0; i < values.length; i++)
+                  res.algorithms[i] = Algorithm.valueOf(values[i].toUpperCase());
+               break;
+            case "seeds":
+               res.seeds = new long[values.length];
+               for (int i = 0; i < values.length; i++)
+                  res.seeds[i] = Long.parseLong(values[i]);
+               break;
+            case "warmups":
+               res.warmups = Integer.parseInt(values[0]);
+               break;
+            case "iterations":
+               res.iterations = Integer.parseInt(values[0]);
+               break;
+            case "time":
+               res.iterationNanos = Long.parseLong(values[0]) * 1000000L;
+               break;
+            case "forks":
+               res.forks = Integer.parseInt(values[0]);
+               break;
+            case "csv":
+               res.csv = arg.substring(eq + 1);
+               break;
+            case "json":
+               res.json = arg.substring(eq + 1);
+               break;
+            default:
+               throw new IllegalArgumentException("unknown option: " + arg);
+            }
+         }
+         if (res.warmups < 0 || res.iterations < 1 || res.iterationNanos < 0 || res.forks < 0)
+            throw new IllegalArgumentException("wrong number of iterations or forks");
+         return res;
+      }
+   }
+
+   /**
+    * Main method.
+    *
+    * @param args
+    *           command line parameters: CHILD_FLAG inside a fork,
+    *           CROSSOVER_FLAG for the insertion sort crossover, otherwise
+    *           Options
+    */
+   public static void main(String[] args) throws IOException, InterruptedException {
+      if (args.length > 0 && CHILD_FLAG.equals(args[0])) {
+         Options options = Options.parse(Arrays.copyOfRange(args, 1, args.length));
+         for (Result r : measureAll(options))
+            System.out.println(r.serialize());
+         return;
+      }
+      if (args.length > 0 && CROSSOVER_FLAG.equals(args[0])) {
+         crossover();
+         return;
+      }
+      Options options = Options.parse(args);
+      List<Result> results = options.forks > 0 ? measureForked(options) : measureAll(options);
+      printTable(results);
+      if (options.csv != null)
+         Files.write(Paths.get(options.csv), toCsv(results).getBytes(StandardCharsets.UTF_8));
+      if (options.json != null)
+         Files.write(Paths.get(options.json), toJson(results, options).getBytes(StandardCharsets.UTF_8));
+   }
+
+   /**
+    * Measure all selected combinations of algorithm, distribution and
+    * size in this JVM. Every seed gives its own input array, results of
+    * all seeds are summed up.
+    *
+    * @param options
+    *           benchmark settings
+    * @return list of results
+    */
+   static List<Result> measureAll(Options options) {
+      List<Result> results = new ArrayList<>();
+      for (int size : options.sizes) {
+         for (Distribution d : options.distributions) {
+            for (Algorithm alg : options.algorithms) {
+               if (alg.quadratic && size > QUADRATIC_LIMIT)
+                  continue;
+               Result sum = new Result(alg, d, size);
+               try {
+                  for (long seed : options.seeds)
+                     sum.add(measure(alg, d, d.generate(size, new Random(seed)), options));
+                  results.add(sum);
+               } catch (RuntimeException e) {
+                  System.err.println(alg.title + " failed on " + d + " input of size " + size + ": " + e);
+               }
+            }
+         }
+      }
+      return results;
+   }
+
+   /**
+    * Run all measurements in child JVMs and sum up their results.
+    *
+    * @param options
+    *           benchmark settings
+    * @return list of results
+    */
+   static List<Result> measureForked(Options options) throws IOException, InterruptedException {
+      Map<String, Result> sums = new LinkedHashMap<>();
+      String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+      for (int fork = 0; fork < options.forks; fork++) {
+         System.err.println("fork " + (fork + 1) + " of " + options.forks);
+         List<String> command = new ArrayList<>(Arrays.asList(java, "-cp", System.getProperty("java.class.path"),
+               DoubleSortingBenchmark.class.getName(), CHILD_FLAG));
+         command.addAll(Arrays.asList(options.args));
+         ProcessBuilder pb = new ProcessBuilder(command);
+         pb.redirectError(ProcessBuilder.Redirect.INHERIT);
+         Process p = pb.start();
+         try (BufferedReader in = new BufferedReader(new InputStreamReader(p.getInputStream()))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+               Result r = Result.parse(line);
+               String key = r.algorithm + ";" + r.distribution + ";" + r.size;
+               if (sums.containsKey(key))
+                  sums.get(key).add(r);
+               else
+                  sums.put(key, r);
+            }
+         }
+         if (p.waitFor() != 0)
+            throw new IllegalStateException("benchmark fork failed with exit code " + p.exitValue());
+      }
+      return new ArrayList<>(sums.values());
+   }
+
+   /**
+    * Measure one algorithm on one input. Each sort gets a fresh copy of
+    * the input; only the sort itself is timed.
+    *
+    * @param alg
+    *           sorting method
+    * @param d
+    *           distribution of the input
+    * @param orig
+    *           input array, not changed
+    * @param options
+    *           numbers of iterations and their duration
+    * @return result of the measured iterations
+    */
+   static Result measure(Algorithm alg, Distribution d, double[] orig, Options options) {
+      Result res = new Result(alg, d, orig.length);
+      double[] work = new double[orig.length];
+      for (int it = 0; it < options.warmups + options.iterations; it++) {
+         boolean measured = it >= options.warmups;
+         long iterationTime = 0;
+         int iterationOps = 0;
+         do {
+            System.arraycopy(orig, 0, work, 0, orig.length);
+            long bytesBefore = DoubleSorting.allocatedBytes();
+            long stime = System.nanoTime();
+            alg.sort(work);
+            long ftime = System.nanoTime();
+            long bytesAfter = DoubleSorting.allocatedBytes();
+            sink += work[0] + work[work.length - 1];
+            iterationTime += ftime - stime;
+            iterationOps++;
+            if (measured) {
+               res.operations++;
+               res.nanos += ftime - stime;
+               res.bytes += Math.max(0, bytesAfter - bytesBefore - ALLOCATION_OVERHEAD);
+            }
+         } while (iterationTime < options.iterationNanos);
+         if (measured)
+            res.addSample(iterationTime / 1e6 / iterationOps);
+      }
+      return res;
+   }
+
+   /**
+    * Compare insertion sort and binary insertion sort on short intervals,
+    * as they are used for the base case of merge sort and introsort, and
+    * print the first length where binary insertion sort is faster.
+    */
+   static void crossover() {
+      double[] orig = Distribution.RANDOM.generate(1 << 16, new Random(SEED));
+      double[] work = new double[orig.length];
+      System.out.printf("%8s%24s%24s%n", "Length", "Insertion (ns/elem)", "Binary ins. (ns/elem)");
+      int crossover = -1;
+      for (int m : CROSSOVER_SIZES) {
+         double plain = blockSortNanos(LeafSort.INSERTION, m, orig, work);
+         double binary = blockSortNanos(LeafSort.BINARY_INSERTION, m, orig, work);
+         System.out.printf("%8d%24.2f%24.2f%n", m, plain, binary);
+         if (crossover < 0 && binary < plain)
+            crossover = m;
+      }
+      if (crossover < 0)
+         System.out.println("Insertion sort is faster for all measured lengths");
+      else
+         System.out.println("Binary insertion sort is faster from length " + crossover);
+   }
+
+   /**
+    * Sort consecutive blocks of an array and measure the time per element.
+    *
+    * @param method
+    *           sorting method for the blocks
+    * @param block
+    *           length of the sorted intervals
+    * @param orig
+    *           input array, not changed
+    * @param work
+    *           array of the same length for sorting
+    * @return average time per sorted element in nanoseconds
+    */
+   static double blockSortNanos(LeafSort method, int block, double[] orig, double[] work) {
+      long nanos = 0;
+      long elements = 0;
+      int end = work.length - work.length % block;
+      for (int it = 0; it < WARMUP_ITERATIONS + MEASUREMENT_ITERATIONS; it++) {
+         long iterationTime = 0;
+         do {
+            System.arraycopy(orig, 0, work, 0, orig.length);
+            long stime = System.nanoTime();
+            for (int l = 0; l < end; l += block)
+               method.sort(work, l, l + block);
+            long time = System.nanoTime() - stime;
+            sink += work[0];
+            iterationTime += time;
+            if (it >= WARMUP_ITERATIONS) {
+               nanos += time;
+               elements += end;
+            }
+         } while (iterationTime < ITERATION_TIME_NS);
+      }
+      return (double) nanos / elements;
+   }
+
+   /**
+    * Bytes allocated between two consecutive calls of allocatedBytes.
+    *
+    * @return smallest observed overhead, 0 if counting is not supported
+    */
+   static long allocationOverhead() {
+      long min = Long.MAX_VALUE;
+      for (int i = 0; i < 1000; i++) {
+         long before = DoubleSorting.allocatedBytes();
+         long after = DoubleSorting.allocatedBytes();
+         if (before < 0)
+            return 0;
+         min = Math.min(min, after - before);
+      }
+      return min;
+   }
+
+   /**
+    * Print results as a table.
+    *
+    * @param results
+    *           list of results
+    */
+   static void printTable(List<Result> results) {
+      System.out.printf("%-22s%12s%9s%14s%12s%12s%12s%14s%14s%14s%n", "Algorithm", "Distribution", "Size",
+            "avgt (ms/op)", "median", "p95", "p99", "thrpt (ops/s)", "alloc (MB/s)", "alloc (B/op)");
+      for (Result r : results) {
+         System.out.printf("%-22s%12s%9d%14.3f%12.3f%12.3f%12.3f%14.1f%14.1f%14.1f%n", r.algorithm.title,
+               r.distribution, r.size, r.millisPerOp(), r.percentileMillis(50.), r.percentileMillis(95.),
+               r.percentileMillis(99.), r.opsPerSecond(), r.allocMBPerSecond(), r.allocBytesPerOp());
+      }
+   }
+
+   /**
+    * Format results as CSV with a header line, times in milliseconds.
+    *
+    * @param results
+    *           list of results
+    * @return CSV text
+    */
+   static String toCsv(List<Result> results) {
+      StringBuilder res = new StringBuilder();
+      res.append("algorithm,distribution,size,samples,avgt_ms,median_ms,p95_ms,p99_ms,ops_per_s,alloc_bytes_per_op\n");
+      for (Result r : results) {
+         res.append(String.format(Locale.ROOT, "%s,%s,%d,%d,%.6f,%.6f,%.6f,%.6f,%.3f,%.1f\n", r.algorithm,
+               r.distribution, r.size, r.samples.length, r.millisPerOp(), r.percentileMillis(50.),
+               r.percentileMillis(95.), r.percentileMillis(99.), r.opsPerSecond(), r.allocBytesPerOp()));
+      }
+      return res.toString();
+   }
+
+   /**
+    * Format results and the settings that produced them as JSON, times in
+    * milliseconds. Values that were not measured are written as null.
+    *
+    * @param results
+    *           list of results
+    * @param options
+    *           benchmark settings
+    * @return JSON text
+    */
+   static String toJson(List<Result> results, Options options) {
+      StringBuilder res = new StringBuilder();
+      res.append("{\n  \"seeds\": ").append(Arrays.toString(options.seeds));
+      res.append(",\n  \"warmups\": ").append(options.warmups);
+      res.append(",\n  \"iterations\": ").append(options.iterations);
+      res.append(",\n  \"forks\": ").append(options.forks);
+      res.append(",\n  \"results\": [");
+      for (int i = 0; i < results.size(); i++) {
+         Result r = results.get(i);
+         res.append(i > 0 ? "," : "").append("\n    {");
+         res.append("\"algorithm\": \"").append(r.algorithm).append("\", ");
+         res.append("\"distribution\": \"").append(r.distribution).append("\", ");
+         res.append("\"size\": ").append(r.size).append(", ");
+         res.append("\"samples\": ").append(r.samples.length).append(", ");
+         res.append("\"avgt_ms\": ").append(jsonNumber(r.millisPerOp())).append(", ");
+         res.append("\"median_ms\": ").append(jsonNumber(r.percentileMillis(50.))).append(", ");
+         res.append("\"p95_ms\": ").append(jsonNumber(r.percentileMillis(95.))).append(", ");
+         res.append("\"p99_ms\": ").append(jsonNumber(r.percentileMillis(99.))).append(", ");
+         res.append("\"ops_per_s\": ").append(jsonNumber(r.opsPerSecond())).append(", ");
+         res.append("\"alloc_bytes_per_op\": ").append(jsonNumber(r.allocBytesPerOp())).append("}");
+      }
+      res.append("\n  ]\n}\n");
+      return res.toString();
+   }
+
+   /**
+    * Format a number for JSON, which has no NaN or infinity.
+    *
+    * @param x
+    *           number
+    * @return x as text, null if it is not finite
+    */
+   private static String jsonNumber(double x) {
+      return Double.isNaN(x) || Double.isInfinite(x) ? "null" : Double.toString(x);
+   }
+
+}
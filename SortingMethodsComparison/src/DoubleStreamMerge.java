@@ -0,0 +1,177 @@
+import java.util.*;
+import java.util.stream.DoubleStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazy k-way merge of sorted double sources. The sources are combined by
+ * a loser tree over primitive cursors, so taking the next value needs
+ * log k comparisons and nothing is buffered except one current value per
+ * source. Values are compared as in DoubleSorting.merge: of two sources
+ * the earlier one is taken unless its value is bigger, so equal values
+ * keep the order of the sources. Comparisons and values taken are counted
+ * by DoubleSorting if it is instrumented.
+ *
+ * @since 1.8
+ * Atakan Delikan
+ */
+public class DoubleStreamMerge implements PrimitiveIterator.OfDouble {
+
+   /** Main method. */
+   public static void main(String[] args) {
+      DoubleStream evens = DoubleStream.iterate(0., x -> x + 2.);
+      DoubleStream odds = DoubleStream.iterate(1., x -> x + 2.);
+      DoubleStream tens = DoubleStream.of(0.5, 10., 10., 20.);
+      System.out.println(Arrays.toString(merge(evens, odds, tens).limit(20).toArray()));
+   }
+
+   /**
+    * Merge sorted streams into one sorted stream. The result is lazy and
+    * closes all given streams when it is closed.
+    *
+    * @param streams
+    *           sorted streams
+    * @return merged stream
+    */
+   public static DoubleStream merge(DoubleStream... streams) {
+      PrimitiveIterator.OfDouble[] sources = new PrimitiveIterator.OfDouble[streams.length];
+      for (int i = 0; i < streams.length; i++)
+         sources[i] = streams[i].iterator();
+      DoubleStream res = StreamSupport.doubleStream(
+            Spliterators.spliteratorUnknownSize(merge(sources), Spliterator.ORDERED), false);
+      return res.onClose(() -> {
+         for (DoubleStream s : streams)
+            s.close();
+      });
+   }
+
+   /**
+    * Merge sorted iterators into one sorted iterator.
+    *
+    * @param sources
+    *           sorted iterators
+    * @return merged iterator
+    */
+   public static PrimitiveIterator.OfDouble merge(PrimitiveIterator.OfDouble... sources) {
+      return new DoubleStreamMerge(sources);
+   }
+
+   private final PrimitiveIterator.OfDouble[] sources;
+
+   /** current value of each source */
+   private final double[] current;
+
+   /** true for sources without a current value */
+   private final boolean[] exhausted;
+
+   /** loser tree: tree[0] is the winner, other nodes hold losers */
+   private final int[] tree;
+
+   private boolean started = false;
+
+   DoubleStreamMerge(PrimitiveIterator.OfDouble[] sources) {
+      this.sources = sources.clone();
+      int k = sources.length;
+      current = new double[k];
+      exhausted = new boolean[Math.max(1, k)];
+      tree = new int[Math.max(1, k)];
+      if (k == 0)
+         exhausted[0] = true; // nothing to merge
+   }
+
+   @Override
+   public boolean hasNext() {
+      if (!started)
+         start();
+      return !exhausted[tree[0]];
+   }
+
+   @Override
+   public double nextDouble() {
+      if (!hasNext())
+         throw new NoSuchElementException();
+      int w = tree[0];
+      double res = current[w];
+      DoubleSorting.count(0, 1);
+      advance(w);
+      replay(w);
+      return res;
+   }
+
+   /** Read the first value of every source and build the tree. */
+   private void start() {
+      started = true;
+      for (int i = 0; i < sources.length; i++)
+         advance(i);
+      if (sources.length > 0)
+         tree[0] = build(1);
+   }
+
+   /**
+    * Build the subtree of a node.
+    *
+    * @param node
+    *           node number, leaves are numbered from k
+    * @return winner of the subtree
+    */
+   private int build(int node) {
+      int k = sources.length;
+      if (node >= k)
+         return node - k;
+      int w1 = build(2 * node);
+      int w2 = build(2 * node + 1);
+      if (beats(w1, w2)) {
+         tree[node] = w2;
+         return w1;
+      }
+      tree[node] = w1;
+      return w2;
+   }
+
+   /**
+    * Replay the matches on the path from a leaf to the root after its
+    * source has advanced.
+    *
+    * @param w
+    *           source that has advanced
+    */
+   private void replay(int w) {
+      for (int node = (w + sources.length) / 2; node > 0; node /= 2) {
+         if (beats(tree[node], w)) {
+            int tmp = tree[node];
+            tree[node] = w;
+            w = tmp;
+         }
+      }
+      tree[0] = w;
+   }
+
+   /**
+    * Move a source to its next value.
+    *
+    * @param i
+    *           source index
+    */
+   private void advance(int i) {
+      if (sources[i].hasNext())
+         current[i] = sources[i].nextDouble();
+      else
+         exhausted[i] = true;
+   }
+
+   /**
+    * Compare the current values of two sources.
+    *
+    * @param i
+    *           first source
+    * @param j
+    *           second source
+    * @return true if the value of source i has to be taken first
+    */
+   private boolean beats(int i, int j) {
+      if (exhausted[i] || exhausted[j])
+         return !exhausted[i];
+      DoubleSorting.count(1, 0);
+      return i < j ? !(current[i] > current[j]) : current[i] < current[j];
+   }
+
+}
@@ -0,0 +1,352 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * External sort of binary files of doubles that do not fit into the heap.
+ * The input is read through memory mapped chunks, every chunk is sorted
+ * in memory and spilled to a temporary run file, then the runs are merged
+ * k at a time using a heap until one run is left. Values are stored as
+ * 8 byte big-endian IEEE-754 numbers (as written by DataOutputStream).
+ * Comparisons and values written by merges are counted by DoubleSorting if
+ * it is instrumented.
+ *
+ * @since 1.8
+ * Atakan Delikan
+ */
+public class ExternalDoubleSort {
+
+   /** number of doubles sorted in memory at once */
+   static final int DEFAULT_CHUNK_SIZE = 1 << 22;
+
+   /** maximal number of runs merged in one pass */
+   static final int DEFAULT_FAN_IN = 64;
+
+   /** number of doubles buffered per run while merging */
+   static final int IO_BUFFER_SIZE = 8192;
+
+   /** Statistics of one external sort. */
+   public static class Stats {
+
+      long bytes = 0;
+      int runs = 0;
+      int passes = 0;
+      long nanos = 0;
+
+      /** @return throughput in megabytes of input per second */
+      public double megabytesPerSecond() {
+         return bytes / (1024. * 1024.) / (nanos / 1e9);
+      }
+
+      @Override
+      public String toString() {
+         return String.format("%d bytes, %d runs, %d passes, %d ms, %.1f MB/s", bytes, runs, passes,
+               nanos / 1000000, megabytesPerSecond());
+      }
+   }
+
+   /**
+    * Main method. Sorts a file given on the command line, or a generated
+    * file of random doubles if no arguments are given.
+    *
+    * @param args
+    *           input file, output file and optional chunk size
+    */
+   public static void main(String[] args) throws IOException {
+      if (args.length >= 2) {
+         int chunkSize = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_CHUNK_SIZE;
+         System.out.println(sort(Paths.get(args[0]), Paths.get(args[1]), chunkSize, DEFAULT_FAN_IN));
+         return;
+      }
+      Path input = Files.createTempFile("doubles", ".bin");
+      Path output = Files.createTempFile("sorted", ".bin");
+      try {
+         Random generator = new Random();
+         try (DataOutputStream out = new DataOutputStream(
+               new BufferedOutputStream(Files.newOutputStream(input)))) {
+            for (int i = 0; i < 4 * 1024 * 1024; i++)
+               out.writeDouble(generator.nextDouble() * 1000.);
+         }
+         System.out.println(sort(input, output, 1 << 20, DEFAULT_FAN_IN));
+      } finally {
+         Files.delete(input);
+         Files.delete(output);
+      }
+   }
+
+   /**
+    * Sort a file of doubles with default chunk size and fan-in.
+    *
+    * @param input
+    *           file to be sorted, not changed
+    * @param output
+    *           file for the sorted values, replaced if it exists
+    * @return statistics of the sort
+    */
+   public static Stats sort(Path input, Path output) throws IOException {
+      return sort(input, output, DEFAULT_CHUNK_SIZE, DEFAULT_FAN_IN);
+   }
+
+   /**
+    * Sort a file of doubles.
+    *
+    * @param input
+    *           file to be sorted, not changed
+    * @param output
+    *           file for the sorted values, replaced if it exists
+    * @param chunkSize
+    *           number of doubles sorted in memory at once
+    * @param fanIn
+    *           maximal number of runs merged in one pass
+    * @return statistics of the sort
+    */
+   public static Stats sort(Path input, Path output, int chunkSize, int fanIn) throws IOException {
+      if (chunkSize < 1 || chunkSize > Integer.MAX_VALUE / Double.BYTES || fanIn < 2)
+         throw new IllegalArgumentException("sort: wrong parameters");
+      long stime = System.nanoTime();
+      Stats stats = new Stats();
+      Path tempDir = output.toAbsolutePath().getParent();
+      List<Path> runs = createRuns(input, tempDir, chunkSize, stats);
+      stats.runs = runs.size();
+      stats.passes = 1;
+      List<Path> next = new ArrayList<>(); // runs of the current pass, deleted as well on failure
+      try {
+         while (runs.size() > fanIn) {
+            next = new ArrayList<>();
+            for (int i = 0; i < runs.size(); i += fanIn) {
+               List<Path> group = runs.subList(i, Math.min(runs.size(), i + fanIn));
+               Path merged = Files.createTempFile(tempDir, "run", ".bin");
+               next.add(merged);
+               mergeRuns(group, merged);
+               for (Path p : group)
+                  Files.delete(p);
+            }
+            runs = next;
+            stats.passes++;
+         }
+         if (runs.size() == 1) {
+            Files.move(runs.get(0), output, StandardCopyOption.REPLACE_EXISTING);
+         } else {
+            mergeRuns(runs, output);
+            stats.passes++;
+         }
+      } finally {
+         for (Path p : runs)
+            Files.deleteIfExists(p);
+         for (Path p : next)
+            Files.deleteIfExists(p);
+      }
+      stats.nanos = System.nanoTime() - stime;
+      return stats;
+   }
+
+   /**
+    * Read the input chunk by chunk, sort each chunk and write it to a
+    * temporary run file. Chunks are sorted by introsort: unlike quickSort
+    * it has no quadratic worst case, unlike mergeSort it needs no second
+    * buffer of chunk size.
+    *
+    * @param input
+    *           file to be sorted
+    * @param tempDir
+    *           directory for run files
+    * @param chunkSize
+    *           number of doubles sorted in memory at once
+    * @param stats
+    *           statistics to be updated
+    * @return run files in input order
+    */
+   static List<Path> createRuns(Path input, Path tempDir, int chunkSize, Stats stats) throws IOException {
+      List<Path> runs = new ArrayList<>();
+      boolean done = false;
+      try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ)) {
+         long size = in.size();
+         if (size % Double.BYTES != 0)
+            throw new IllegalArgumentException("file length is not a multiple of 8: " + input);
+         stats.bytes = size;
+         long count = size / Double.BYTES;
+         int capacity = (int) Math.max(1, Math.min(chunkSize, count));
+         double[] chunk = new double[capacity];
+         ByteBuffer bytes = ByteBuffer.allocateDirect(capacity * Double.BYTES);
+         for (long start = 0; start < count || runs.isEmpty(); start += capacity) {
+            int n = (int) Math.min(capacity, count - start);
+            MappedByteBuffer mapped = in.map(FileChannel.MapMode.READ_ONLY, start * Double.BYTES,
+                  (long) n * Double.BYTES);
+            mapped.asDoubleBuffer().get(chunk, 0, n);
+            if (n > 0)
+               DoubleSorting.introSort(chunk, 0, n);
+            bytes.clear();
+            bytes.asDoubleBuffer().put(chunk, 0, n);
+            bytes.limit(n * Double.BYTES);
+            Path run = Files.createTempFile(tempDir, "run", ".bin");
+            runs.add(run);
+            try (FileChannel out = FileChannel.open(run, StandardOpenOption.WRITE)) {
+               while (bytes.hasRemaining())
+                  out.write(bytes);
+            }
+         }
+         done = true;
+      } finally {
+         if (!done)
+            for (Path p : runs)
+               Files.deleteIfExists(p);
+      }
+      return runs;
+   }
+
+   /**
+    * Merge sorted run files into one sorted file. The heap holds run
+    * indices ordered by the current value of each run; equal values are
+    * taken from the earlier run first.
+    *
+    * @param runs
+    *           sorted run files
+    * @param output
+    *           file for the merged values, replaced if it exists
+    */
+   static void mergeRuns(List<Path> runs, Path output) throws IOException {
+      int k = runs.size();
+      RunReader[] readers = new RunReader[k];
+      try (FileChannel out = FileChannel.open(output, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+         int[] heap = new int[k];
+         int heapSize = 0;
+         for (int i = 0; i < k; i++) {
+            readers[i] = new RunReader(runs.get(i));
+            if (readers[i].hasNext())
+               heap[heapSize++] = i;
+         }
+         for (int i = heapSize / 2 - 1; i >= 0; i--)
+            siftDown(heap, heapSize, i, readers);
+         ByteBuffer bytes = ByteBuffer.allocateDirect(IO_BUFFER_SIZE * Double.BYTES);
+         DoubleBuffer values = bytes.asDoubleBuffer();
+         while (heapSize > 0) {
+            RunReader r = readers[heap[0]];
+            values.put(r.current);
+            DoubleSorting.count(0, 1);
+            if (!values.hasRemaining())
+               flush(out, bytes, values);
+            r.advance();
+            if (!r.hasNext())
+               heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize, 0, readers);
+         }
+         flush(out, bytes, values);
+      } finally {
+         for (RunReader r : readers)
+            if (r != null)
+               r.close();
+      }
+   }
+
+   /**
+    * Move a heap element down to its place.
+    *
+    * @param heap
+    *           run indices
+    * @param size
+    *           heap size
+    * @param i
+    *           position of the element to be moved
+    * @param readers
+    *           runs with their current values
+    */
+   private static void siftDown(int[] heap, int size, int i, RunReader[] readers) {
+      int x = heap[i];
+      int child;
+      while ((child = 2 * i + 1) < size) {
+         if (child + 1 < size && before(heap[child + 1], heap[child], readers))
+            child++;
+         if (!before(heap[child], x, readers))
+            break;
+         heap[i] = heap[child];
+         i = child;
+      }
+      heap[i] = x;
+   }
+
+   /**
+    * Compare the current values of two runs as DoubleSorting.merge does.
+    *
+    * @param i
+    *           index of the first run
+    * @param j
+    *           index of the second run
+    * @param readers
+    *           runs with their current values
+    * @return true if run i has to be taken before run j
+    */
+   private static boolean before(int i, int j, RunReader[] readers) {
+      double x = readers[i].current;
+      double y = readers[j].current;
+      DoubleSorting.count(1, 0);
+      return x < y || (!(y < x) && i < j);
+   }
+
+   /**
+    * Write buffered values to a channel and clear the buffer.
+    *
+    * @param out
+    *           output channel
+    * @param bytes
+    *           byte buffer behind values
+    * @param values
+    *           buffered values
+    */
+   private static void flush(FileChannel out, ByteBuffer bytes, DoubleBuffer values) throws IOException {
+      bytes.clear();
+      bytes.limit(values.position() * Double.BYTES);
+      while (bytes.hasRemaining())
+         out.write(bytes);
+      values.clear();
+   }
+
+   /** Buffered cursor over one sorted run file. */
+   static class RunReader implements Closeable {
+
+      private final FileChannel channel;
+      private final ByteBuffer bytes = ByteBuffer.allocateDirect(IO_BUFFER_SIZE * Double.BYTES);
+      private DoubleBuffer values = bytes.asDoubleBuffer();
+      private boolean exhausted = false;
+      double current;
+
+      RunReader(Path run) throws IOException {
+         channel = FileChannel.open(run, StandardOpenOption.READ);
+         values.limit(0);
+         advance();
+      }
+
+      /** @return true if current holds a value */
+      boolean hasNext() {
+         return !exhausted;
+      }
+
+      /** Move to the next value of the run. */
+      void advance() throws IOException {
+         if (!values.hasRemaining()) {
+            bytes.clear();
+            while (bytes.hasRemaining()) {
+               if (channel.read(bytes) < 0)
+                  break;
+            }
+            bytes.flip();
+            values = bytes.asDoubleBuffer();
+            if (!values.hasRemaining()) {
+               exhausted = true;
+               return;
+            }
+         }
+         current = values.get();
+      }
+
+      @Override
+      public void close() throws IOException {
+         channel.close();
+      }
+   }
+
+}
@@ -0,0 +1,298 @@
+// Generated by template/generate.sh from template/PrimitiveSorting.java.template, do not edit.
+import java.util.*;
+
+/**
+ * Comparison of sorting methods for int keys, the same family of
+ * methods as in DoubleSorting without boxing. The same array of int
+ * values is used for all methods.
+ * 
+ * @since 1.8
+ * Atakan Delikan
+ */
+public class IntSorting {
+
+   /** maximal array length */
+   static final int MAX_SIZE = 512000;
+
+   /** number of competition rounds */
+   static final int NUMBER_OF_ROUNDS = 4;
+
+   /** interval length below which merge sort switches to insertion sort */
+   static final int INSERTION_SORT_CUTOFF = 32;
+
+   /**
+    * Main method.
+    * 
+    * @param args
+    *           command line parameters
+    */
+   public static void main(String[] args) {
+      final int[] origArray = new int[MAX_SIZE];
+      Random generator = new Random();
+      for (int i = 0; i < MAX_SIZE; i++) {
+         origArray[i] = generator.nextInt();
+      }
+      int rightLimit = MAX_SIZE / (int) Math.pow(2., NUMBER_OF_ROUNDS);
+
+      // Start a competition
+      for (int round = 0; round < NUMBER_OF_ROUNDS; round++) {
+         int[] acopy;
+         long stime, ftime, diff;
+         rightLimit = 2 * rightLimit;
+         System.out.println();
+         System.out.println("Length: " + rightLimit);
+
+         acopy = Arrays.copyOf(origArray, rightLimit);
+         stime = System.nanoTime();
+         insertionSort(acopy);
+         ftime = System.nanoTime();
+         diff = ftime - stime;
+         System.out.printf("%34s%11d%n", "Insertion sort: time (ms): ", diff / 1000000);
+         checkOrder(acopy);
+
+         acopy = Arrays.copyOf(origArray, rightLimit);
+         stime = System.nanoTime();
+         binaryInsertionSort(acopy);
+         ftime = System.nanoTime();
+         diff = ftime - stime;
+         System.out.printf("%34s%11d%n", "Binary insertion sort: time (ms): ", diff / 1000000);
+         checkOrder(acopy);
+
+         acopy = Arrays.copyOf(origArray, rightLimit);
+         stime = System.nanoTime();
+         mergeSort(acopy, 0, acopy.length);
+         ftime = System.nanoTime();
+         diff = ftime - stime;
+         System.out.printf("%34s%11d%n", "Merge sort: time (ms): ", diff / 1000000);
+         checkOrder(acopy);
+
+         acopy = Arrays.copyOf(origArray, rightLimit);
+         stime = System.nanoTime();
+         quickSort(acopy, 0, acopy.length);
+         ftime = System.nanoTime();
+         diff = ftime - stime;
+         System.out.printf("%34s%11d%n", "Quicksort: time (ms): ", diff / 1000000);
+         checkOrder(acopy);
+
+         acopy = Arrays.copyOf(origArray, rightLimit);
+         stime = System.nanoTime();
+         Arrays.sort(acopy);
+         ftime = System.nanoTime();
+         diff = ftime - stime;
+         System.out.printf("%34s%11d%n", "Java API  Arrays.sort: time (ms): ", diff / 1000000);
+         checkOrder(acopy);
+      }
+   }
+
+   /**
+    * Insertion sort.
+    * 
+    * @param a
+    *           array to be sorted
+    */
+   public static void insertionSort(int[] a) {
+      insertionSort(a, 0, a.length);
+   }
+
+   /**
+    * Insertion sort of an interval.
+    * 
+    * @param a
+    *           array to be sorted
+    * @param left
+    *           begin of an interval (included)
+    * @param right
+    *           end of an interval (excluded)
+    */
+   public static void insertionSort(int[] a, int left, int right) {
+      if ((right - left) < 2)
+         return;
+      for (int i = left + 1; i < right; i++) {
+         int b = a[i];
+         int j;
+         for (j = i - 1; j >= left; j--) {
+            if (a[j] <= b)
+               break;
+            a[j + 1] = a[j];
+         }
+         a[j + 1] = b;
+      }
+   }
+
+   /**
+    * Binary insertion sort.
+    * 
+    * @param a
+    *           array to be sorted
+    */
+   public static void binaryInsertionSort(int[] a) {
+      binaryInsertionSort(a, 0, a.length);
+   }
+
+   /**
+    * Stable binary insertion sort of an interval, as in DoubleSorting.
+    * 
+    * @param a
+    *           array to be sorted
+    * @param from
+    *           begin of an interval (included)
+    * @param to
+    *           end of an interval (excluded)
+    */
+   public static void binaryInsertionSort(int[] a, int from, int to) {
+      for (int i = from + 1; i < to; i++) {
+         int b = a[i];
+         if (!(a[i - 1] > b))
+            continue;
+         // invariant: a[hi] > b, insertion point is in (lo, hi]
+         int hi = i - 1;
+         int lo = hi - 1;
+         int step = 1;
+         while (lo >= from && a[lo] > b) {
+            hi = lo;
+            step <<= 1;
+            lo = hi - step;
+         }
+         lo = Math.max(lo + 1, from);
+         while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] > b)
+               hi = mid;
+            else
+               lo = mid + 1;
+         }
+         System.arraycopy(a, hi, a, hi + 1, i - hi);
+         a[hi] = b;
+      }
+   }
+
+   /**
+    * Merge sort. Allocates one scratch buffer for the whole sort.
+    * 
+    * @param array
+    *           array to be sorted
+    * @param left
+    *           begin of an interval (included)
+    * @param right
+    *           end of an interval (excluded)
+    */
+   public static void mergeSort(int[] array, int left, int right) {
+      if ((right - left) < 2)
+         return;
+      mergeSort(array, new int[array.length], left, right);
+   }
+
+   /**
+    * Merge sort with a preallocated buffer.
+    * 
+    * @param array
+    *           array to be sorted
+    * @param buffer
+    *           scratch space of the same length as array
+    * @param left
+    *           begin of an interval (included)
+    * @param right
+    *           end of an interval (excluded)
+    */
+   static void mergeSort(int[] array, int[] buffer, int left, int right) {
+      if ((right - left) <= INSERTION_SORT_CUTOFF) {
+         insertionSort(array, left, right);
+         return;
+      }
+      int k = (left + right) >>> 1;
+      mergeSort(array, buffer, left, k);
+      mergeSort(array, buffer, k, right);
+      merge(array, buffer, left, k, right);
+   }
+
+   /**
+    * Merge two intervals using a preallocated buffer. Nothing is done if
+    * the intervals are already in order.
+    * 
+    * @param array
+    *           original
+    * @param buffer
+    *           scratch space of the same length as array
+    * @param left
+    *           start1
+    * @param k
+    *           start2 = end1
+    * @param right
+    *           end2
+    */
+   static void merge(int[] array, int[] buffer, int left, int k, int right) {
+      if (!(array[k - 1] > array[k]))
+         return;
+      int n1 = left;
+      int n2 = k;
+      int m = left;
+      while (n1 < k && n2 < right) {
+         if (array[n1] > array[n2]) {
+            buffer[m++] = array[n2++];
+         } else {
+            buffer[m++] = array[n1++];
+         }
+      }
+      while (n1 < k)
+         buffer[m++] = array[n1++];
+      while (n2 < right)
+         buffer[m++] = array[n2++];
+      System.arraycopy(buffer, left, array, left, right - left);
+   }
+
+   /**
+    * Sort a part of the array using quicksort method.
+    * 
+    * @param array
+    *           array to be changed
+    * @param l
+    *           starting index (included)
+    * @param r
+    *           ending index (excluded)
+    */
+   public static void quickSort(int[] array, int l, int r) {
+      if (array == null || array.length < 1 || l < 0 || r <= l)
+         throw new IllegalArgumentException("quickSort: wrong parameters");
+      if ((r - l) < 2)
+         return;
+      int i = l;
+      int j = r - 1;
+      int x = array[(i + j) / 2];
+      do {
+         while (array[i] < x)
+            i++;
+         while (x < array[j])
+            j--;
+         if (i <= j) {
+            int tmp = array[i];
+            array[i] = array[j];
+            array[j] = tmp;
+            i++;
+            j--;
+         }
+      } while (i < j);
+      if (l < j)
+         quickSort(array, l, j + 1); // recursion for left part
+      if (i < r - 1)
+         quickSort(array, i, r); // recursion for right part
+   }
+
+   /**
+    * Check whether an array is ordered.
+    * 
+    * @param a
+    *           sorted (?) array
+    * @throws IllegalArgumentException
+    *            if an array is not ordered
+    */
+   static void checkOrder(int[] a) {
+      if (a.length < 2)
+         return;
+      for (int i = 0; i < a.length - 1; i++) {
+         if (a[i] > a[i + 1])
+            throw new IllegalArgumentException(
+                  "array not ordered: " + "a[" + i + "]=" + a[i] + " a[" + (i + 1) + "]=" + a[i + 1]);
+      }
+   }
+
+}
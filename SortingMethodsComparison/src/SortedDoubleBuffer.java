@@ -0,0 +1,188 @@
+import java.util.*;
+
+/**
+ * Sorted window of doubles for streaming workloads. Values arrive in
+ * batches: each batch is sorted on its own and merged into the sorted
+ * backing array in one pass with DoubleSorting.merge. The arrival order
+ * is remembered in a ring buffer, so the oldest values can be evicted in
+ * one pass as well. Rank and percentile queries use binary search or
+ * direct indexing on the sorted array.
+ * Values must not be NaN; -0.0 is stored as 0.0.
+ *
+ * @since 1.8
+ * Atakan Delikan
+ */
+public class SortedDoubleBuffer {
+
+   /** default initial capacity */
+   static final int DEFAULT_CAPACITY = 16;
+
+   /** values in ascending order, valid up to size */
+   private double[] sorted;
+
+   /** scratch space for merging, as long as sorted */
+   private double[] buffer;
+
+   /** values in arrival order, starting at head */
+   private double[] arrivals;
+
+   private int head = 0;
+   private int size = 0;
+
+   /** Create an empty buffer. */
+   public SortedDoubleBuffer() {
+      this(DEFAULT_CAPACITY);
+   }
+
+   /**
+    * Create an empty buffer.
+    *
+    * @param capacity
+    *           initial capacity
+    */
+   public SortedDoubleBuffer(int capacity) {
+      if (capacity < 1)
+         throw new IllegalArgumentException("capacity must be positive: " + capacity);
+      sorted = new double[capacity];
+      buffer = new double[capacity];
+      arrivals = new double[capacity];
+   }
+
+   /** @return number of values in the buffer */
+   public int size() {
+      return size;
+   }
+
+   /**
+    * Add a batch of values.
+    *
+    * @param batch
+    *           values in arrival order
+    */
+   public void addAll(double... batch) {
+      for (double x : batch)
+         if (Double.isNaN(x))
+            throw new IllegalArgumentException("NaN cannot be ranked");
+      ensureCapacity(size + batch.length);
+      int k = size;
+      for (double x : batch) {
+         double v = x + 0.; // -0.0 becomes 0.0
+         sorted[size] = v;
+         arrivals[(head + size) % arrivals.length] = v;
+         size++;
+      }
+      if (size - k > 1)
+         DoubleSorting.introSort(sorted, k, size);
+      if (k > 0 && size > k)
+         DoubleSorting.merge(sorted, buffer, 0, k, size);
+   }
+
+   /**
+    * Remove the values that were added first.
+    *
+    * @param n
+    *           number of values to be removed
+    */
+   public void evictOldest(int n) {
+      if (n < 0 || n > size)
+         throw new IllegalArgumentException("cannot evict " + n + " of " + size + " values");
+      if (n == 0)
+         return;
+      double[] old = buffer;
+      for (int i = 0; i < n; i++)
+         old[i] = arrivals[(head + i) % arrivals.length];
+      DoubleSorting.introSort(old, 0, n);
+      // both arrays are sorted: skip every old value once, keep the rest
+      int j = 0;
+      int m = 0;
+      for (int i = 0; i < size; i++) {
+         if (j < n && sorted[i] == old[j])
+            j++;
+         else
+            sorted[m++] = sorted[i];
+      }
+      head = (head + n) % arrivals.length;
+      size = m;
+   }
+
+   /**
+    * Value at a given position in sorted order.
+    *
+    * @param i
+    *           position from 0
+    * @return i-th smallest value
+    */
+   public double get(int i) {
+      if (i < 0 || i >= size)
+         throw new IndexOutOfBoundsException("index " + i + ", size " + size);
+      return sorted[i];
+   }
+
+   /**
+    * Number of values smaller than x.
+    *
+    * @param x
+    *           value
+    * @return rank of x
+    */
+   public int rank(double x) {
+      int lo = 0;
+      int hi = size;
+      while (lo < hi) {
+         int mid = (lo + hi) >>> 1;
+         if (sorted[mid] < x)
+            lo = mid + 1;
+         else
+            hi = mid;
+      }
+      return lo;
+   }
+
+   /**
+    * Percentile with linear interpolation between closest ranks, as in
+    * DoubleSorting.percentile.
+    *
+    * @param p
+    *           percentile from 0 to 100
+    * @return p-th percentile
+    */
+   public double percentile(double p) {
+      if (size < 1 || !(p >= 0. && p <= 100.))
+         throw new IllegalArgumentException("percentile: wrong parameters");
+      double rank = p / 100. * (size - 1);
+      int lo = (int) rank;
+      if (lo == size - 1)
+         return sorted[lo];
+      return sorted[lo] + (sorted[lo + 1] - sorted[lo]) * (rank - lo);
+   }
+
+   /** @return values in ascending order */
+   public double[] toArray() {
+      return Arrays.copyOf(sorted, size);
+   }
+
+   @Override
+   public String toString() {
+      return Arrays.toString(toArray());
+   }
+
+   /**
+    * Grow the arrays if needed, keeping the arrival order starting at 0.
+    *
+    * @param capacity
+    *           needed capacity
+    */
+   private void ensureCapacity(int capacity) {
+      if (capacity <= sorted.length)
+         return;
+      int newCapacity = Math.max(capacity, 2 * sorted.length);
+      double[] newArrivals = new double[newCapacity];
+      for (int i = 0; i < size; i++)
+         newArrivals[i] = arrivals[(head + i) % arrivals.length];
+      arrivals = newArrivals;
+      head = 0;
+      sorted = Arrays.copyOf(sorted, newCapacity);
+      buffer = new double[newCapacity];
+   }
+
+}
@@ -0,0 +1,18 @@
+#!/bin/sh
+# Generate IntSorting, LongSorting and FloatSorting in src from
+# PrimitiveSorting.java.template. Placeholders: $type$ (element type),
+# $Type$ (class name prefix), $random$ (random value in main).
+# Edit the template, never the generated files, then run this script.
+cd "$(dirname "$0")/.." || exit 1
+
+generate() {
+   {
+      printf '// Generated by template/generate.sh from template/PrimitiveSorting.java.template, do not edit.\r\n'
+      sed -e "s/[$]type[$]/$1/g" -e "s/[$]Type[$]/$2/g" -e "s/[$]random[$]/$3/g" \
+         template/PrimitiveSorting.java.template
+   } > "src/$2Sorting.java"
+}
+
+generate int Int 'generator.nextInt()'
+generate long Long 'generator.nextLong()'
+generate float Float 'generator.nextFloat()*1000.f'
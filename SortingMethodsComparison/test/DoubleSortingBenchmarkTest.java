@@ -0,0 +1,94 @@
+import static org.junit.Assert.*;
+import org.junit.Test;
+import java.util.*;
+
+/** Test class.
+ * @author Atakan Delikan
+ */
+public class DoubleSortingBenchmarkTest {
+
+   @Test (timeout=1000)
+   public void testDistributions() {
+      Random generaator = new Random(3);
+      double[] a = DoubleSortingBenchmark.Distribution.SORTED.generate (100, generaator);
+      assertTrue (" sorted input not sorted", DoubleSortingTest.inOrder (a));
+      a = DoubleSortingBenchmark.Distribution.REVERSED.generate (100, generaator);
+      assertTrue (" reversed input not reversed", a[0] > a[99]);
+      a = DoubleSortingBenchmark.Distribution.NAN.generate (1000, generaator);
+      int nans = 0;
+      for (double x : a)
+         if (Double.isNaN (x))
+            nans++;
+      assertTrue (" no NaN values generated", nans > 0);
+   }
+
+   @Test (timeout=1000)
+   public void testResultRoundTrip() {
+      DoubleSortingBenchmark.Result r = new DoubleSortingBenchmark.Result (
+            DoubleSortingBenchmark.Algorithm.QUICK, DoubleSortingBenchmark.Distribution.SAWTOOTH, 1000);
+      r.operations = 4;
+      r.nanos = 2000000;
+      r.bytes = 64;
+      DoubleSortingBenchmark.Result p = DoubleSortingBenchmark.Result.parse (r.serialize());
+      assertEquals (r.serialize(), p.serialize());
+      assertEquals (0.5, p.millisPerOp(), 1e-9);
+      assertEquals (16., p.allocBytesPerOp(), 1e-9);
+      assertTrue (" percentile without samples", Double.isNaN (p.percentileMillis (50.)));
+      for (int i = 1; i <= 100; i++)
+         r.addSample (i);
+      p = DoubleSortingBenchmark.Result.parse (r.serialize());
+      assertEquals (r.serialize(), p.serialize());
+      assertEquals (50.5, p.percentileMillis (50.), 1e-9);
+      assertEquals (99.01, p.percentileMillis (99.), 1e-9);
+   }
+
+   @Test (timeout=5000)
+   public void testAlgorithms() {
+      DoubleSortingBenchmark.Options o = DoubleSortingBenchmark.Options.parse (new String[] {
+            "-algorithms=intro,parallel_merge,sample"});
+      assertArrayEquals (new DoubleSortingBenchmark.Algorithm[] {DoubleSortingBenchmark.Algorithm.INTRO,
+         DoubleSortingBenchmark.Algorithm.PARALLEL_MERGE, DoubleSortingBenchmark.Algorithm.SAMPLE}, o.algorithms);
+      DoubleSortingBenchmark.Distribution[] distributions = {DoubleSortingBenchmark.Distribution.RANDOM,
+         DoubleSortingBenchmark.Distribution.FEW_UNIQUE};
+      for (DoubleSortingBenchmark.Algorithm alg : DoubleSortingBenchmark.Algorithm.values()) {
+         for (DoubleSortingBenchmark.Distribution d : distributions) {
+            double[] a = d.generate (alg.quadratic ? 1000 : 50000, new Random(5));
+            double[] b = Arrays.copyOf (a, a.length);
+            Arrays.sort (b);
+            alg.sort (a);
+            assertArrayEquals (alg.title + " on " + d, b, a, 0.);
+         }
+      }
+   }
+
+   @Test (timeout=1000)
+   public void testOptions() {
+      DoubleSortingBenchmark.Options o = DoubleSortingBenchmark.Options.parse (new String[] {
+            "-sizes=10,20", "-distributions=sorted", "-algorithms=QUICK,radix", "-seeds=7", "-forks=0"});
+      assertArrayEquals (new int[] {10, 20}, o.sizes);
+      assertArrayEquals (new long[] {7L}, o.seeds);
+      assertEquals (2, o.algorithms.length);
+      assertEquals (DoubleSortingBenchmark.Distribution.SORTED, o.distributions[0]);
+      assertEquals (DoubleSortingBenchmark.MEASUREMENT_ITERATIONS, o.iterations);
+      try {
+         DoubleSortingBenchmark.Options.parse (new String[] {"-size=10"});
+         fail (" unknown option accepted");
+      } catch (IllegalArgumentException e) {
+         // expected
+      }
+   }
+
+   @Test (timeout=5000)
+   public void testSeededMeasurement() {
+      DoubleSortingBenchmark.Options o = DoubleSortingBenchmark.Options.parse (new String[] {
+            "-sizes=100", "-distributions=random", "-algorithms=merge", "-seeds=1,2",
+            "-warmups=0", "-iterations=3", "-time=0", "-forks=0"});
+      List<DoubleSortingBenchmark.Result> results = DoubleSortingBenchmark.measureAll (o);
+      assertEquals (1, results.size());
+      assertEquals (6, results.get (0).samples.length);
+      assertEquals (6, results.get (0).operations);
+      String csv = DoubleSortingBenchmark.toCsv (results);
+      assertTrue (csv, csv.startsWith ("algorithm,") && csv.contains ("\nMERGE,RANDOM,100,6,"));
+   }
+
+}
@@ -1,6 +1,9 @@
 import static org.junit.Assert.*;
 import org.junit.Test;
+import java.io.*;
+import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 /** Test class.
  * @author Jaanus
@@ -50,5 +53,547 @@ public class DoubleSortingTest {
       assertTrue (msg, inOrder (a));
    }
 
-}
+   @Test (timeout=5000)
+   public void testParallelMergeSort() {
+      double[] a = new double[100000];
+      Random generaator = new Random(1);
+      for (int i = 0; i < a.length; i++) {
+         a[i] = generaator.nextDouble()*100.;
+      }
+      double[] b = Arrays.copyOf (a, a.length);
+      Arrays.sort (b);
+      DoubleSorting.parallelMergeSort (a, 1000);
+      assertArrayEquals (" parallel merge sort differs from Arrays.sort", b, a, 0.);
+   }
+
+   @Test (timeout=5000)
+   public void testIntroSort() {
+      Random generaator = new Random(2);
+      double[][] inputs = new double[4][100000];
+      for (int i = 0; i < inputs[0].length; i++) {
+         inputs[0][i] = generaator.nextDouble()*100.;
+         inputs[1][i] = Math.min (50., Math.max (10., generaator.nextDouble()*100.));
+         inputs[2][i] = i;
+         inputs[3][i] = i % 2 == 0 ? i : -i;
+      }
+      for (double[] a : inputs) {
+         double[] b = Arrays.copyOf (a, a.length);
+         Arrays.sort (b);
+         DoubleSorting.introSort (a, 0, a.length);
+         assertArrayEquals (" introsort differs from Arrays.sort", b, a, 0.);
+      }      double[] zeros = {-0., 0., 1., 2.};
+      for (int round = 0; round < 100; round++) {
+         double[] a = new double[1000];
+         for (int i = 0; i < a.length; i++)
+            a[i] = zeros[generaator.nextInt (zeros.length)];
+         double[] b = Arrays.copyOf (a, a.length);
+         Arrays.sort (b);
+         DoubleSorting.introSort (a, 0, a.length);
+         assertTrue (" introsort did not sort signed zeros", inOrder (a));
+         // introsort does not order -0.0 and 0.0, but it must keep both of them
+         Arrays.sort (a);
+         for (int i = 0; i < a.length; i++)
+            assertEquals (" introsort changed a signed zero", Double.doubleToLongBits (b[i]),
+                  Double.doubleToLongBits (a[i]));
+      }
+   }
+
+   @Test (timeout=1000)
+   public void testHeapSort() {
+      double[] a = new double[] {5., 1., 4., 2., 3., 0., 9.};
+      double[] b = new double[] {5., 0., 1., 2., 3., 4., 9.};
+      DoubleSorting.heapSort (a, 1, 6);
+      assertArrayEquals (Arrays.toString (a), b, a, delta);
+   }
+
+   @Test (timeout=5000)
+   public void testRadixSort() {
+      double[] a = new double[100000];
+      Random generaator = new Random(4);
+      for (int i = 0; i < a.length; i++) {
+         a[i] = (generaator.nextDouble() - 0.5)*1e6;
+      }
+      double[] b = Arrays.copyOf (a, a.length);
+      Arrays.sort (b);
+      DoubleSorting.radixSort (a);
+      assertArrayEquals (" radix sort differs from Arrays.sort", b, a, 0.);
+   }
+
+   @Test (timeout=1000)
+   public void testRadixSortSpecialValues() {
+      a = new double[] {Double.NaN, 0., -0., 1., Double.NEGATIVE_INFINITY, -0., Double.NaN,
+         -Double.MIN_VALUE, Double.POSITIVE_INFINITY, 0., -1e300, Double.MIN_VALUE};
+      b = Arrays.copyOf (a, a.length);
+      msg = Arrays.toString (a);
+      Arrays.sort (b);
+      DoubleSorting.radixSort (a);
+      for (int i = 0; i < a.length; i++)
+         assertEquals (msg, Double.doubleToLongBits (b[i]), Double.doubleToLongBits (a[i]));
+   }
+
+   @Test (timeout=5000)
+   public void testNaturalMergeSort() {
+      Random generaator = new Random(5);
+      double[] buffer = new double[100000];
+      double[][] inputs = new double[4][100000];
+      for (int i = 0; i < inputs[0].length; i++) {
+         inputs[0][i] = generaator.nextDouble()*100.;
+         inputs[1][i] = i;
+         inputs[2][i] = -i;
+         inputs[3][i] = i % 1000 + generaator.nextInt (3);
+      }
+      for (double[] a : inputs) {
+         double[] b = Arrays.copyOf (a, a.length);
+         Arrays.sort (b);
+         DoubleSorting.naturalMergeSort (a, buffer);
+         assertArrayEquals (" natural merge sort differs from Arrays.sort", b, a, 0.);
+      }
+   }
+
+   @Test (timeout=1000)
+   public void testBinaryInsertionSortDuplicates() {
+      a = new double[] {2., 1., 2., 1., 1., 3., 2.};
+      b = new double[] {1., 1., 1., 2., 2., 2., 3.};
+      msg = Arrays.toString (a);
+      DoubleSorting.binaryInsertionSort (a);
+      assertArrayEquals (msg, b, a, delta);
+   }
+
+   @Test (timeout=1000)
+   public void testBinaryInsertionSortStableInterval() {
+      a = new double[] {9., 0., 1., -0., 0., -1., -0., 8.};
+      msg = Arrays.toString (a);
+      DoubleSorting.binaryInsertionSort (a, 1, 7);
+      double[] expected = new double[] {9., -1., 0., -0., 0., -0., 1., 8.};
+      for (int i = 0; i < a.length; i++)
+         assertEquals (msg, Double.doubleToLongBits (expected[i]), Double.doubleToLongBits (a[i]));
+   }
+
+   @Test (timeout=5000)
+   public void testSelectAndPartialSort() {
+      double[] a = new double[100000];
+      Random generaator = new Random(8);
+      for (int i = 0; i < a.length; i++) {
+         a[i] = generaator.nextInt (1000);
+      }
+      double[] b = Arrays.copyOf (a, a.length);
+      Arrays.sort (b);
+      for (int k : new int[] {0, 1, 500, 50000, 99999}) {
+         assertEquals (b[k], DoubleSorting.select (a, k), 0.);
+      }
+      DoubleSorting.partialSort (a, 100);
+      assertArrayEquals (" partial sort differs from Arrays.sort",
+         Arrays.copyOf (b, 100), Arrays.copyOf (a, 100), 0.);
+   }
+
+   @Test (timeout=1000)
+   public void testPercentile() {
+      a = new double[] {15., 20., 35., 40., 50.};
+      assertEquals (15., DoubleSorting.percentile (a, 0.), delta);
+      assertEquals (35., DoubleSorting.percentile (a, 50.), delta);
+      assertEquals (37.5, DoubleSorting.percentile (a, 62.5), delta);
+      assertEquals (50., DoubleSorting.percentile (a, 100.), delta);
+   }
+
+   @Test (timeout=1000)
+   public void testArgSortIsStable() {
+      a = new double[] {3., 1., 2., 1., 3.};
+      assertArrayEquals (new int[] {1, 3, 2, 0, 4}, DoubleSorting.argSort (a));
+      assertArrayEquals (new double[] {3., 1., 2., 1., 3.}, a, 0.);
+   }
+
+   @Test (timeout=1000)
+   public void testArgSortNullKeys() {
+      try {
+         DoubleSorting.argSort (null);
+         fail (" argSort accepted null keys");
+      } catch (IllegalArgumentException e) {
+         // expected
+      }
+      try {
+         DoubleSorting.parallelArgSort (null, 1);
+         fail (" parallelArgSort accepted null keys");
+      } catch (IllegalArgumentException e) {
+         // expected
+      }
+   }
+
+   @Test (timeout=5000)
+   public void testParallelArgSortAndApplyPermutation() {
+      double[] keys = new double[100000];
+      double[] payload = new double[keys.length];
+      String[] names = new String[keys.length];
+      Random generaator = new Random(9);
+      for (int i = 0; i < keys.length; i++) {
+         keys[i] = generaator.nextInt (1000);
+         payload[i] = keys[i] * 2.;
+         names[i] = String.valueOf (keys[i]);
+      }
+      int[] perm = DoubleSorting.parallelArgSort (keys, 1000);
+      assertArrayEquals (DoubleSorting.argSort (keys), perm);
+      int[] permCopy = Arrays.copyOf (perm, perm.length);
+      DoubleSorting.applyPermutation (perm, keys, payload);
+      DoubleSorting.applyPermutation (perm, names);
+      assertArrayEquals (permCopy, perm);
+      assertTrue (" keys not sorted", inOrder (keys));
+      for (int i = 0; i < keys.length; i++) {
+         assertEquals (keys[i] * 2., payload[i], 0.);
+         assertEquals (String.valueOf (keys[i]), names[i]);
+      }
+   }
+
+   @Test (timeout=1000)
+   public void testApplyPermutationRejectsBadInput() {
+      int[][] perms = {{2, -2, 0}, {1, 2, 1}, {3, 0, 1}, {0, 1}};
+      for (int[] perm : perms) {
+         int[] permCopy = Arrays.copyOf (perm, perm.length);
+         double[] values = {1., 2., 3.};
+         String[] names = {"a", "b", "c"};
+         try {
+            DoubleSorting.applyPermutation (perm, values);
+            fail (Arrays.toString (perm) + " accepted");
+         } catch (IllegalArgumentException e) {
+            // expected
+         }
+         try {
+            DoubleSorting.applyPermutation (perm, names);
+            fail (Arrays.toString (perm) + " accepted");
+         } catch (IllegalArgumentException e) {
+            // expected
+         }
+         assertArrayEquals (permCopy, perm);
+         assertArrayEquals (new double[] {1., 2., 3.}, values, 0.);
+         assertArrayEquals (new String[] {"a", "b", "c"}, names);
+      }
+   }
+
+   @Test (timeout=5000)
+   public void testAdaptiveSortDecisions() {
+      Random generaator = new Random(10);
+      double[][] inputs = new double[4][];
+      inputs[0] = new double[] {3., 1., 2.};
+      inputs[1] = new double[100000];
+      inputs[2] = new double[100000];
+      inputs[3] = new double[100000];
+      for (int i = 0; i < 100000; i++) {
+         inputs[1][i] = i % 1000 < 990 ? i : generaator.nextDouble();
+         inputs[2][i] = generaator.nextInt (10);
+         inputs[3][i] = generaator.nextDouble()*100.;
+      }
+      String[] expected = new String[] {"insertion sort", "natural merge sort", "introsort", "radix sort"};
+      for (int k = 0; k < inputs.length; k++) {
+         double[] b = Arrays.copyOf (inputs[k], inputs[k].length);
+         Arrays.sort (b);
+         DoubleSorting.SortStats stats = DoubleSorting.sort (inputs[k]);
+         assertEquals (stats.toString(), expected[k], stats.method);
+         assertArrayEquals (" adaptive sort differs from Arrays.sort", b, inputs[k], 0.);
+      }
+   }
+
+   @Test (timeout=5000)
+   public void testAdaptiveSortNaN() {
+      Random generaator = new Random(10);
+      int[] sizes = {5, 100, 1000, 100000};
+      for (int n : sizes) {
+         for (int kind = 0; kind < 3; kind++) {
+            double[] a = new double[n];
+            for (int i = 0; i < n; i++) {
+               switch (kind) {
+               case 0: a[i] = generaator.nextDouble()*100.; break;
+               case 1: a[i] = generaator.nextInt (4); break;
+               default: a[i] = i;
+               }
+               if (generaator.nextInt (10) == 0 || i == n / 2)
+                  a[i] = Double.NaN;
+            }
+            double[] b = Arrays.copyOf (a, a.length);
+            Arrays.sort (b);
+            DoubleSorting.SortStats stats = DoubleSorting.sort (a);
+            assertArrayEquals (" adaptive sort with NaN, " + stats, b, a, 0.);
+         }
+      }
+      double[] a = {Double.NaN, Double.NaN};
+      DoubleSorting.sort (a);
+      assertTrue (" only NaN", Double.isNaN (a[0]) && Double.isNaN (a[1]));
+   }
+
+   @Test (timeout=5000)
+   public void testAdaptiveSortSignedZeros() {
+      Random generaator = new Random(11);
+      double[] zeros = {-0., 0., Double.NaN};
+      double[][] inputs = new double[5][];
+      inputs[0] = new double[] {0., Double.NaN, -0., 1., -0., -1., 0.};
+      inputs[1] = new double[100000];
+      inputs[2] = new double[100000];
+      inputs[3] = new double[100000];
+      inputs[4] = new double[10000];
+      for (int i = 0; i < 100000; i++) {
+         inputs[1][i] = i % 1000 < 990 ? i - 50000 : zeros[generaator.nextInt (zeros.length)];
+         inputs[2][i] = generaator.nextInt (10) - 5;
+         inputs[3][i] = (generaator.nextDouble() - 0.5)*100.;
+         if (i < inputs[4].length)
+            inputs[4][i] = (generaator.nextDouble() - 0.5)*100.;
+         for (int k = 2; k < inputs.length; k++) {
+            if (i < inputs[k].length && generaator.nextInt (10) == 0)
+               inputs[k][i] = zeros[generaator.nextInt (zeros.length)];
+         }
+      }
+      String[] expected = new String[] {"insertion sort", "natural merge sort", "introsort", "radix sort",
+         "introsort"};
+      for (int k = 0; k < inputs.length; k++) {
+         double[] b = Arrays.copyOf (inputs[k], inputs[k].length);
+         Arrays.sort (b);
+         DoubleSorting.SortStats stats = DoubleSorting.sort (inputs[k]);
+         assertEquals (stats.toString(), expected[k], stats.method);
+         for (int i = 0; i < b.length; i++)
+            assertEquals (stats.toString(), Double.doubleToLongBits (b[i]),
+                  Double.doubleToLongBits (inputs[k][i]));
+         assertTrue (stats.toString(), DoubleSorting.verifyOrder (inputs[k]).isOrdered());
+      }
+   }
+
+   @Test (timeout=5000)
+   public void testSampleSort() {
+      Random generaator = new Random(13);
+      double[][] inputs = new double[4][];
+      inputs[0] = new double[200000];
+      inputs[1] = new double[200000];
+      inputs[2] = new double[200000];
+      inputs[3] = new double[] {3., 1., 2.};
+      for (int i = 0; i < inputs[0].length; i++) {
+         inputs[0][i] = (generaator.nextDouble() - 0.5)*100.;
+         inputs[1][i] = generaator.nextInt (5);
+         inputs[2][i] = 7.;
+      }
+      for (int k = 0; k < inputs.length; k++) {
+         double[] a = inputs[k];
+         double[] b = Arrays.copyOf (a, a.length);
+         Arrays.sort (b);
+         DoubleSorting.SampleSortStats stats = DoubleSorting.sampleSort (a, 4);
+         assertArrayEquals (" sample sort differs from Arrays.sort, " + stats, b, a, 0.);
+         // few distinct values must go to equality buckets, not to one sorted bucket
+         assertEquals (stats.toString(), k == 1 ? 5 : k == 2 ? 1 : 0, stats.equalityBuckets);
+      }
+      double[] a = {3., 1., 2.};
+      DoubleSorting.sampleSort (a, Integer.MAX_VALUE);
+      assertArrayEquals (new double[] {1., 2., 3.}, a, 0.);
+   }
+
+   @Test (timeout=30000)
+   public void testInstrumentedCounters() throws Exception {
+      if (DoubleSorting.INSTRUMENTED) {
+         checkCounters();
+         return;
+      }
+      // the flag is read once at class loading, so count in a child JVM
+      String java = Paths.get (System.getProperty ("java.home"), "bin", "java").toString();
+      ProcessBuilder pb = new ProcessBuilder (java, "-DdoubleSorting.instrument=true", "-cp",
+            System.getProperty ("java.class.path"), InstrumentedRun.class.getName());
+      pb.redirectErrorStream (true);
+      Process child = pb.start();
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      try (InputStream in = child.getInputStream()) {
+         byte[] buf = new byte[4096];
+         for (int k; (k = in.read (buf)) > 0; )
+            output.write (buf, 0, k);
+      }
+      assertEquals (" instrumented run failed:\n" + output, 0, child.waitFor());
+   }
+
+   /** Runs checkCounters in a JVM started with -DdoubleSorting.instrument=true. */
+   public static class InstrumentedRun {
+      public static void main (String[] args) throws IOException {
+         checkCounters();
+      }
+   }
+
+   /** Check comparison, move and depth counts of several sorting methods. */
+   static void checkCounters() throws IOException {
+      assertTrue (" instrumentation is off", DoubleSorting.INSTRUMENTED);
+      double[] a = {3., 1., 2.};
+      DoubleSorting.Counters.reset();
+      DoubleSorting.binaryInsertionSort (a);
+      assertArrayEquals (" binary insertion sort", new double[] {1., 2., 3.}, a, 0.);
+      assertEquals (" binary insertion sort comparisons", 3, DoubleSorting.Counters.comparisons.sum());
+      assertEquals (" binary insertion sort moves", 4, DoubleSorting.Counters.moves.sum());
+
+      // reversed input: every element is compared with and shifted past all before it
+      double[] reversed = new double[10];
+      for (int i = 0; i < reversed.length; i++) {
+         reversed[i] = reversed.length - i;
+      }
+      a = Arrays.copyOf (reversed, reversed.length);
+      DoubleSorting.Counters.reset();
+      DoubleSorting.insertionSort (a, 0, a.length);
+      assertEquals (" insertion sort comparisons", 45, DoubleSorting.Counters.comparisons.sum());
+      assertEquals (" insertion sort moves", 54, DoubleSorting.Counters.moves.sum());
+      DoubleSorting.Counters.reset();
+      int[] p = DoubleSorting.argSort (reversed);
+      assertEquals (" argSort", 9, p[0]);
+      assertEquals (" argSort comparisons", 45, DoubleSorting.Counters.comparisons.sum());
+      assertEquals (" argSort moves", 54, DoubleSorting.Counters.moves.sum());
 
+      DoubleSorting.Counters.reset();
+      double[] merged = DoubleStreamMerge.merge (java.util.stream.DoubleStream.of (1., 3.),
+            java.util.stream.DoubleStream.of (2., 4.)).toArray();
+      assertArrayEquals (" stream merge", new double[] {1., 2., 3., 4.}, merged, 0.);
+      assertEquals (" stream merge comparisons", 3, DoubleSorting.Counters.comparisons.sum());
+      assertEquals (" stream merge moves", 4, DoubleSorting.Counters.moves.sum());
+
+      Random generaator = new Random(16);
+      int n = 1000;
+      double[] orig = new double[n];
+      for (int i = 0; i < n; i++) {
+         orig[i] = generaator.nextDouble()*100.;
+      }
+      long log = 32 - Integer.numberOfLeadingZeros (n);
+      for (int method = 0; method < 6; method++) {
+         a = Arrays.copyOf (orig, n);
+         DoubleSorting.Counters.reset();
+         switch (method) {
+         case 0: DoubleSorting.mergeSort (a, 0, n); break;
+         case 1: DoubleSorting.quickSort (a, 0, n); break;
+         case 2: DoubleSorting.introSort (a, 0, n); break;
+         case 3: DoubleSorting.tiledMergeSort (a, 64, 4); break;
+         case 4: DoubleSorting.argSort (a); break;
+         default: DoubleSorting.select (a, n / 2);
+         }
+         long comparisons = DoubleSorting.Counters.comparisons.sum();
+         long moves = DoubleSorting.Counters.moves.sum();
+         // between the lower bound of sorting (or n for selection) and a generous upper bound
+         long lower = method == 5 ? n - 1 : n * (log - 2);
+         assertTrue (" method " + method + " comparisons " + comparisons, comparisons >= lower && comparisons <= 4 * n * log);
+         assertTrue (" method " + method + " moves " + moves, moves > 0 && moves <= 8 * n * log);
+         if (method != 3)
+            assertTrue (" method " + method + " depth", DoubleSorting.Counters.maxDepth.get() > 0);
+      }
+
+      Path input = Files.createTempFile ("doubles", ".bin");
+      Path output = Files.createTempFile ("sorted", ".bin");
+      try {
+         try (DataOutputStream out = new DataOutputStream (
+               new BufferedOutputStream (Files.newOutputStream (input)))) {
+            for (double x : orig)
+               out.writeDouble (x);
+         }
+         DoubleSorting.Counters.reset();
+         ExternalDoubleSort.sort (input, output, 100, 64);
+         // ten sorted runs of 100 merged in one pass
+         assertTrue (" external sort comparisons", DoubleSorting.Counters.comparisons.sum() > n);
+         assertTrue (" external sort moves", DoubleSorting.Counters.moves.sum() >= n);
+      } finally {
+         Files.delete (input);
+         Files.deleteIfExists (output);
+      }
+   }
+
+   @Test (timeout=5000)
+   public void testTiledMergeSort() {
+      Random generaator = new Random(17);
+      int[] sizes = {0, 1, 2, 31, 100, 1000, 4099};
+      for (int n : sizes) {
+         for (int ways = 2; ways <= 8; ways++) {
+            double[] a = new double[n];
+            for (int i = 0; i < n; i++) {
+               a[i] = (i % 3 == 0) ? generaator.nextInt (10) : generaator.nextDouble()*100.;
+            }
+            double[] b = Arrays.copyOf (a, a.length);
+            Arrays.sort (b);
+            DoubleSorting.tiledMergeSort (a, 16, ways);
+            assertArrayEquals (" tiled merge sort of length " + n + ", " + ways + " ways", b, a, 0.);
+         }
+      }
+      double[] a = new double[70000];
+      for (int i = 0; i < a.length; i++) {
+         a[i] = a.length - i;
+      }
+      DoubleSorting.tiledMergeSort (a);
+      assertTrue (" reversed input not sorted", inOrder (a));
+   }
+
+   @Test (timeout=10000)
+   public void testParallelQuickSort() {
+      Random generaator = new Random(19);
+      int[] sizes = {0, 1, 2, 3, 10, 100, 1000, 100000};
+      int[] thresholds = {1, 7, 64, 8192};
+      for (int n : sizes) {
+         for (int threshold : thresholds) {
+            for (int kind = 0; kind < 4; kind++) {
+               double[] a = new double[n];
+               for (int i = 0; i < n; i++) {
+                  switch (kind) {
+                  case 0: a[i] = generaator.nextDouble()*100.; break;
+                  case 1: a[i] = generaator.nextInt (3); break;
+                  case 2: a[i] = i; break;
+                  default: a[i] = n - i;
+                  }
+               }
+               double[] b = Arrays.copyOf (a, a.length);
+               Arrays.sort (b);
+               DoubleSorting.parallelQuickSort (a, threshold);
+               assertArrayEquals (" parallel quicksort of length " + n + ", threshold " + threshold
+                     + ", input " + kind, b, a, 0.);
+            }
+         }
+      }
+   }
+
+   @Test (timeout=60000)
+   public void testParallelQuickSortStress() throws Exception {
+      Random generaator = new Random(29);
+      ForkJoinPool pool = new ForkJoinPool(32);
+      try {
+         for (int round = 0; round < 20; round++) {
+            int n = 1 << (14 + round % 6);
+            double[] a = new double[n];
+            for (int i = 0; i < n; i++) {
+               a[i] = generaator.nextInt (round % 2 == 0 ? 4 : 1000);
+            }
+            double[] b = Arrays.copyOf (a, a.length);
+            Arrays.sort (b);
+            DoubleSorting.parallelQuickSort (a, 1 + round % 3 * 16, pool);
+            // equal to the sorted copy: a permutation of the input in order
+            assertArrayEquals (" parallel quicksort on 32 threads, round " + round, b, a, 0.);
+         }
+      } finally {
+         pool.shutdown();
+      }
+   }
+
+   @Test (timeout=5000)
+   public void testVerifyOrder() {
+      assertTrue (DoubleSorting.verifyOrder (new double[0]).isOrdered());
+      assertTrue (DoubleSorting.verifyOrder (new double[] {-0., 0., 1., Double.NaN, Double.NaN}).isOrdered());
+      DoubleSorting.OrderReport r = DoubleSorting.verifyOrder (new double[] {1., Double.NaN, 2.});
+      assertEquals (" NaN before a number", 1, r.violations);
+      assertArrayEquals (new int[] {1}, r.positions);
+      r = DoubleSorting.verifyOrder (new double[] {0., -0.});
+      assertArrayEquals (" 0.0 before -0.0", new int[] {0}, r.positions);
+
+      Random generaator = new Random(23);
+      double[] a = new double[100000];
+      for (int i = 0; i < a.length; i++) {
+         a[i] = i;
+      }
+      List<Integer> expected = new ArrayList<Integer>();
+      for (int i = 0; i < 40; i++) {
+         int k = generaator.nextInt (a.length - 1);
+         if (!expected.contains (k) && !expected.contains (k - 1) && !expected.contains (k + 1))
+            expected.add (k);
+      }
+      for (int k : expected) {
+         double tmp = a[k];
+         a[k] = a[k + 1];
+         a[k + 1] = tmp;
+      }
+      Collections.sort (expected);
+      for (int threshold : new int[] {1, 100, 1000000}) {
+         r = DoubleSorting.verifyOrder (a, threshold);
+         assertEquals (" violations with threshold " + threshold, expected.size(), r.violations);
+         assertEquals (DoubleSorting.MAX_REPORTED_VIOLATIONS, r.positions.length);
+         for (int i = 0; i < r.positions.length; i++)
+            assertEquals (" position " + i, (int) expected.get (i), r.positions[i]);
+      }
+   }
+
+}
@@ -0,0 +1,52 @@
+import static org.junit.Assert.*;
+import org.junit.Test;
+import java.util.*;
+import java.util.stream.DoubleStream;
+
+/** Test class.
+ * @author Atakan Delikan
+ */
+public class DoubleStreamMergeTest {
+
+   @Test (timeout=1000)
+   public void testManySources() {
+      Random generaator = new Random(12);
+      int k = 37;
+      PrimitiveIterator.OfDouble[] sources = new PrimitiveIterator.OfDouble[k];
+      double[] all = new double[0];
+      for (int i = 0; i < k; i++) {
+         double[] a = new double[generaator.nextInt (50)];
+         for (int j = 0; j < a.length; j++)
+            a[j] = generaator.nextInt (100);
+         Arrays.sort (a);
+         sources[i] = Arrays.stream (a).iterator();
+         double[] tmp = Arrays.copyOf (all, all.length + a.length);
+         System.arraycopy (a, 0, tmp, all.length, a.length);
+         all = tmp;
+      }
+      Arrays.sort (all);
+      PrimitiveIterator.OfDouble merged = DoubleStreamMerge.merge (sources);
+      for (double x : all) {
+         assertTrue (merged.hasNext());
+         assertEquals (x, merged.nextDouble(), 0.);
+      }
+      assertFalse (merged.hasNext());
+      assertFalse (DoubleStreamMerge.merge (new PrimitiveIterator.OfDouble[0]).hasNext());
+   }
+
+   @Test (timeout=1000)
+   public void testLazyInfiniteStreams() {
+      double[] res = DoubleStreamMerge.merge (DoubleStream.iterate (0., x -> x + 2.),
+         DoubleStream.iterate (1., x -> x + 2.)).limit (10).toArray();
+      assertArrayEquals (new double[] {0., 1., 2., 3., 4., 5., 6., 7., 8., 9.}, res, 0.);
+   }
+
+   @Test (timeout=1000)
+   public void testEqualValuesKeepSourceOrder() {
+      PrimitiveIterator.OfDouble merged = DoubleStreamMerge.merge (
+         DoubleStream.of (0.).iterator(), DoubleStream.of (-0.).iterator());
+      assertEquals (Double.doubleToLongBits (0.), Double.doubleToLongBits (merged.nextDouble()));
+      assertEquals (Double.doubleToLongBits (-0.), Double.doubleToLongBits (merged.nextDouble()));
+   }
+
+}
@@ -0,0 +1,62 @@
+import static org.junit.Assert.*;
+import org.junit.Test;
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+/** Test class.
+ * @author Atakan Delikan
+ */
+public class ExternalDoubleSortTest {
+
+   static double[] readDoubles (Path p) throws IOException {
+      double[] res = new double [(int)(Files.size (p) / 8)];
+      try (DataInputStream in = new DataInputStream (
+            new BufferedInputStream (Files.newInputStream (p)))) {
+         for (int i = 0; i < res.length; i++)
+            res[i] = in.readDouble();
+      }
+      return res;
+   }
+
+   @Test (timeout=10000)
+   public void testMultiPassSort() throws IOException {
+      Path input = Files.createTempFile ("doubles", ".bin");
+      Path output = Files.createTempFile ("sorted", ".bin");
+      try {
+         double[] a = new double[10007];
+         Random generaator = new Random(6);
+         try (DataOutputStream out = new DataOutputStream (
+               new BufferedOutputStream (Files.newOutputStream (input)))) {
+            for (int i = 0; i < a.length; i++) {
+               a[i] = generaator.nextDouble()*100.;
+               out.writeDouble (a[i]);
+            }
+         }
+         ExternalDoubleSort.Stats stats = ExternalDoubleSort.sort (input, output, 1000, 4);
+         Arrays.sort (a);
+         assertArrayEquals (" external sort differs from Arrays.sort", a, readDoubles (output), 0.);
+         assertEquals (11, stats.runs);
+         assertEquals (3, stats.passes);
+         assertEquals (a.length * 8L, stats.bytes);
+      } finally {
+         Files.delete (input);
+         Files.delete (output);
+      }
+   }
+
+   @Test (timeout=1000)
+   public void testEmptyFile() throws IOException {
+      Path input = Files.createTempFile ("doubles", ".bin");
+      Path output = Files.createTempFile ("sorted", ".bin");
+      try {
+         ExternalDoubleSort.Stats stats = ExternalDoubleSort.sort (input, output, 1000, 4);
+         assertEquals (0, Files.size (output));
+         assertEquals (1, stats.passes);
+      } finally {
+         Files.delete (input);
+         Files.delete (output);
+      }
+   }
+
+}
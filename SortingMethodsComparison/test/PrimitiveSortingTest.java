@@ -0,0 +1,95 @@
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+import java.lang.reflect.Array;
+import java.util.*;
+
+/** Test class for the sorting classes generated from PrimitiveSorting.java.template.
+ * @author Atakan Delikan
+ */
+@RunWith (Parameterized.class)
+public class PrimitiveSortingTest {
+
+   @Parameters (name = "{0}")
+   public static Collection<Object[]> types() {
+      return Arrays.asList (new Object[][] {
+         {"int", IntSorting.class, int.class},
+         {"long", LongSorting.class, long.class},
+         {"float", FloatSorting.class, float.class}});
+   }
+
+   @Parameter (0)
+   public String name;
+
+   @Parameter (1)
+   public Class<?> sorting;
+
+   @Parameter (2)
+   public Class<?> type;
+
+   /** Array of the element type with given values. */
+   Object array (int... values) {
+      Object res = Array.newInstance (type, values.length);
+      for (int i = 0; i < values.length; i++)
+         Array.set (res, i, values[i]);
+      return res;
+   }
+
+   Object copy (Object a) throws Exception {
+      return Arrays.class.getMethod ("copyOf", a.getClass(), int.class).invoke (null, a, Array.getLength (a));
+   }
+
+   /** Call a static method of the sorting class, the first parameter is the array. */
+   void sort (String method, Object a, Object... bounds) throws Exception {
+      Class<?>[] types = new Class<?>[bounds.length + 1];
+      Object[] args = new Object[bounds.length + 1];
+      types[0] = a.getClass();
+      args[0] = a;
+      for (int i = 0; i < bounds.length; i++) {
+         types[i + 1] = int.class;
+         args[i + 1] = bounds[i];
+      }
+      sorting.getMethod (method, types).invoke (null, args);
+   }
+
+   static void assertSameElements (String message, Object expected, Object actual) {
+      assertEquals (message + " length", Array.getLength (expected), Array.getLength (actual));
+      for (int i = 0; i < Array.getLength (expected); i++)
+         assertEquals (message + " at " + i, Array.get (expected, i), Array.get (actual, i));
+   }
+
+   @Test (timeout=1000)
+   public void testTrivialArray() throws Exception {
+      Object a = array (1, 3, 2, 3, 1);
+      sort ("binaryInsertionSort", a);
+      assertSameElements (name, array (1, 1, 2, 3, 3), a);
+   }
+
+   @Test (timeout=5000)
+   public void testAllMethodsRandom() throws Exception {
+      int[] values = new int[10000];
+      Random generaator = new Random(14);
+      for (int i = 0; i < values.length; i++) {
+         values[i] = generaator.nextInt (2000) - 1000;
+      }
+      Object orig = array (values);
+      Object b = copy (orig);
+      Arrays.class.getMethod ("sort", b.getClass()).invoke (null, b);
+      Object a = copy (orig);
+      sort ("insertionSort", a);
+      assertSameElements (name + " insertion sort", b, a);
+      a = copy (orig);
+      sort ("binaryInsertionSort", a);
+      assertSameElements (name + " binary insertion sort", b, a);
+      a = copy (orig);
+      sort ("mergeSort", a, 0, values.length);
+      assertSameElements (name + " merge sort", b, a);
+      a = copy (orig);
+      sort ("quickSort", a, 0, values.length);
+      assertSameElements (name + " quicksort", b, a);
+   }
+
+}
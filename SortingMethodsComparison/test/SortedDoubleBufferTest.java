@@ -0,0 +1,51 @@
+import static org.junit.Assert.*;
+import org.junit.Test;
+import java.util.*;
+
+/** Test class.
+ * @author Atakan Delikan
+ */
+public class SortedDoubleBufferTest {
+
+   @Test (timeout=1000)
+   public void testBatchesAndEviction() {
+      SortedDoubleBuffer buf = new SortedDoubleBuffer (2);
+      buf.addAll (5., 1., 3.);
+      buf.addAll (2., 5., -0.);
+      assertArrayEquals (new double[] {0., 1., 2., 3., 5., 5.}, buf.toArray(), 0.);
+      buf.evictOldest (2);
+      assertArrayEquals (new double[] {0., 2., 3., 5.}, buf.toArray(), 0.);
+      buf.addAll (4.);
+      buf.evictOldest (1);
+      assertArrayEquals (new double[] {0., 2., 4., 5.}, buf.toArray(), 0.);
+      assertEquals (2, buf.rank (4.));
+      assertEquals (4, buf.rank (6.));
+      assertEquals (3., buf.percentile (50.), 1e-9);
+   }
+
+   @Test (timeout=5000)
+   public void testRollingWindow() {
+      Random generaator = new Random(15);
+      SortedDoubleBuffer buf = new SortedDoubleBuffer();
+      ArrayDeque<Double> window = new ArrayDeque<>();
+      for (int round = 0; round < 200; round++) {
+         double[] batch = new double[generaator.nextInt (50)];
+         for (int i = 0; i < batch.length; i++) {
+            batch[i] = generaator.nextInt (100);
+            window.addLast (batch[i]);
+         }
+         buf.addAll (batch);
+         int evict = Math.max (0, window.size() - 500);
+         buf.evictOldest (evict);
+         for (int i = 0; i < evict; i++)
+            window.removeFirst();
+         double[] expected = new double[window.size()];
+         int k = 0;
+         for (double x : window)
+            expected[k++] = x;
+         Arrays.sort (expected);
+         assertArrayEquals (" round " + round, expected, buf.toArray(), 0.);
+      }
+   }
+
+}